@@ -0,0 +1,50 @@
+package com.game.puzzle.benchmark;
+
+import com.game.puzzle.logic.ArrayIterator;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lambda based iteration over 2D arrays
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ArrayIteratorBenchmark {
+    @Param({ "4x4", "10x10", "32x32" })
+    public String size;
+
+    private ArrayIterator<Integer> iterator;
+    private Integer last;
+
+    @Setup
+    public void setup() {
+        final Dimension dimension = Benchmarks.parseSize(size);
+        final Integer[][] array = new Integer[dimension.height][dimension.width];
+
+        iterator = ArrayIterator.map(array, dimension, (element, x, y) -> y * dimension.width + x);
+        last = dimension.width * dimension.height - 1;
+    }
+
+    @Benchmark
+    public ArrayIterator<Integer> map() {
+        return iterator.map((element, x, y) -> null);
+    }
+
+    @Benchmark
+    public Point find() {
+        /** find iterates from the last cell, the first cell is visited at the end */
+        return iterator.find((element, x, y) -> element == 0);
+    }
+
+    @Benchmark
+    public Point findBestCase() {
+        return iterator.find((element, x, y) -> element.equals(last));
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.puzzle.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Dimension;
+
+/**
+ * Runs benchmarks with allocation profiler, it is the
+ * same as running benchmarks jar with -prof gc option
+ */
+public class Benchmarks {
+    /**
+     * @param size  Size in WIDTHxHEIGHT format
+     * @return      Parsed size
+     */
+    static Dimension parseSize(String size) {
+        final String[] parts = size.split("x");
+        return new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * @param args  Optional benchmarks name pattern
+     * @throws RunnerException  Raises if benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+                new OptionsBuilder()
+                        .include(args.length > 0 ? args[0] : "com.game.puzzle.benchmark")
+                        .addProfiler(GCProfiler.class)
+                        .build()
+        ).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.game.puzzle.benchmark;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.ui.GameBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of board into offscreen image
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GameBoardBenchmark {
+    @Param({ "400x400", "1200x1200", "2400x2400" })
+    public String panel;
+
+    @Param({ "4x4", "10x10" })
+    public String grid;
+
+    private GameBoard board;
+    private BufferedImage frame;
+    private Point[] slides;
+    private int slide;
+
+    @Setup
+    public void setup() {
+        final Dimension size = Benchmarks.parseSize(panel);
+
+        board = new GameBoard(false, Benchmarks.parseSize(grid));
+        board.setSize(size);
+        frame = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+
+        /** tile next to blank is moved back and forth */
+        final BoardState state = board.getGrid().getState();
+        final int blank = state.getBlank();
+        final int x = blank % state.getWidth();
+        final int y = blank / state.getWidth();
+
+        slides = new Point[] {
+                new Point(x > 0 ? x - 1 : x + 1, y),
+                new Point(x, y)
+        };
+        paint();
+    }
+
+    /**
+     * Whole frame is copied, no cell changed
+     */
+    @Benchmark
+    public BufferedImage paint() {
+        final Graphics2D context = frame.createGraphics();
+        board.paint(context);
+        context.dispose();
+        return frame;
+    }
+
+    /**
+     * Single slide followed by paint clipped to repainted area, as done by RepaintManager
+     */
+    @Benchmark
+    public BufferedImage slideAndPaint() {
+        final Rectangle dirty = board.slide(slides[slide]);
+        slide ^= 1;
+
+        final Graphics2D context = frame.createGraphics();
+        context.setClip(dirty);
+        board.paint(context);
+        context.dispose();
+        return frame;
+    }
+}
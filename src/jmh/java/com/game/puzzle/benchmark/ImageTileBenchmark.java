@@ -0,0 +1,67 @@
+package com.game.puzzle.benchmark;
+
+import com.game.puzzle.logic.ImageScaler;
+import com.game.puzzle.logic.ImageTile;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.GradientPaint;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cutting source image into tiles
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Djava.awt.headless=true", "-Xmx2g" })
+public class ImageTileBenchmark {
+    @Param({ "400x500", "2000x2000", "4000x3000" })
+    public String image;
+
+    @Param({ "4x4", "10x10" })
+    public String grid;
+
+    @Param({ "source", "400x500" })
+    public String scaled;
+
+    @Param({ "COPY", "SHARED" })
+    public ImageTile.Mode mode;
+
+    @Param({ "SPEED", "BALANCED", "QUALITY" })
+    public ImageScaler.Policy policy;
+
+    private BufferedImage source;
+    private Dimension parts;
+    private Dimension scaledSize;
+
+    @Setup
+    public void setup() {
+        final Dimension size = Benchmarks.parseSize(image);
+        /** ImageIO decodes JPEG files into 3 byte BGR rasters */
+        source = new BufferedImage(size.width, size.height, BufferedImage.TYPE_3BYTE_BGR);
+
+        final Graphics2D context = source.createGraphics();
+        context.setPaint(new GradientPaint(0, 0, Color.RED, size.width, size.height, Color.BLUE));
+        context.fillRect(0, 0, size.width, size.height);
+        context.dispose();
+
+        parts = Benchmarks.parseSize(grid);
+        scaledSize = "source".equals(scaled) ? null : Benchmarks.parseSize(scaled);
+    }
+
+    @Benchmark
+    public ImageTile cutImageIntoParts() throws Exception {
+        return new ImageTile(source, parts, scaledSize, mode, policy);
+    }
+
+    @Benchmark
+    public BufferedImage scale() {
+        return ImageScaler.scale(source, scaledSize == null ? Benchmarks.parseSize(image) : scaledSize, policy);
+    }
+}
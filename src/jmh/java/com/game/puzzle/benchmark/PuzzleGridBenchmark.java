@@ -0,0 +1,66 @@
+package com.game.puzzle.benchmark;
+
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Point;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Game logic hot paths, every benchmark keeps
+ * board in state that allows next invocation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PuzzleGridBenchmark {
+    @Param({ "3x3", "4x4", "5x5", "10x10" })
+    public String size;
+
+    private PuzzleGrid grid;
+    private PuzzleGenerator generator;
+    private PuzzleGrid.Direction direction;
+    private Point[] rowClicks;
+    private int click;
+
+    @Setup
+    public void setup() {
+        grid = new PuzzleGrid(Benchmarks.parseSize(size));
+        generator = new PuzzleGenerator(0);
+        grid.shuffle(generator);
+
+        /** blank is in right bottom corner after shuffle */
+        direction = PuzzleGrid.Direction.LEFT;
+        rowClicks = new Point[] {
+                new Point(0, grid.getSize().height - 1),
+                new Point(grid.getSize().width - 1, grid.getSize().height - 1)
+        };
+    }
+
+    @Benchmark
+    public boolean slide() {
+        direction = direction.opposite();
+        return grid.slide(direction, 1);
+    }
+
+    @Benchmark
+    public boolean slideRow() {
+        click ^= 1;
+        return grid.slide(rowClicks[click ^ 1]);
+    }
+
+    @Benchmark
+    public boolean isOrdered() {
+        return grid.isOrdered();
+    }
+
+    @Benchmark
+    public int shuffle() {
+        grid.shuffle(generator);
+        return grid.getMisplacedCount();
+    }
+}
@@ -0,0 +1,24 @@
+package com.game.puzzle.engine;
+
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+
+/**
+ * Player used by simulation engine, single instance
+ * plays games only on one worker thread
+ */
+public interface GamePolicy {
+    /**
+     * Called once before every game
+     *
+     * @param grid      Shuffled grid
+     * @param generator Generator of the game, policy can use it as random source
+     */
+    void start(PuzzleGrid grid, PuzzleGenerator generator);
+
+    /**
+     * @param grid  Current grid
+     * @return      Next move, null if policy gives up
+     */
+    PuzzleGrid.Direction next(PuzzleGrid grid);
+}
@@ -0,0 +1,26 @@
+package com.game.puzzle.engine;
+
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Plays random moves without immediate reverts
+ */
+public class RandomPolicy implements GamePolicy {
+    private PuzzleGenerator generator;
+    private PuzzleGrid.Direction previous;
+
+    @Override
+    public void start(@NotNull PuzzleGrid grid, @NotNull PuzzleGenerator generator) {
+        this.generator = generator;
+        this.previous = null;
+    }
+
+    @Override
+    public PuzzleGrid.Direction next(@NotNull PuzzleGrid grid) {
+        previous = generator.nextDirection(grid.getState(), previous);
+        return previous;
+    }
+}
@@ -0,0 +1,36 @@
+package com.game.puzzle.engine;
+
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+import java.util.function.Function;
+
+/**
+ * Replays moves script created for every game,
+ * script can be provided for example by solver
+ */
+public class ScriptedPolicy implements GamePolicy {
+    private final Function<PuzzleGrid, PuzzleGrid.Direction[]> script;
+
+    private PuzzleGrid.Direction[] moves;
+    private int index;
+
+    /**
+     * @param script    Creates moves for shuffled grid
+     */
+    public ScriptedPolicy(@NotNull Function<PuzzleGrid, PuzzleGrid.Direction[]> script) {
+        this.script = script;
+    }
+
+    @Override
+    public void start(@NotNull PuzzleGrid grid, @NotNull PuzzleGenerator generator) {
+        this.moves = script.apply(grid);
+        this.index = 0;
+    }
+
+    @Override
+    public PuzzleGrid.Direction next(@NotNull PuzzleGrid grid) {
+        return index < moves.length ? moves[index++] : null;
+    }
+}
@@ -0,0 +1,209 @@
+package com.game.puzzle.engine;
+
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.solver.IdaStarSolver;
+import com.game.puzzle.solver.PatternDatabase;
+import com.game.puzzle.solver.PatternPartition;
+import com.game.puzzle.solver.PerfectTable;
+import com.game.puzzle.solver.ReductionSolver;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Headless game simulation, it plays many games on
+ * all cores without Swing, images or display. Every game
+ * has its own seed so results do not depend on threads count.
+ */
+public class SimulationEngine {
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final Dimension size;
+    private final Supplier<? extends GamePolicy> policy;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long seed = System.nanoTime();
+    private int scrambleDepth = 0;
+    private int maxMoves = 10_000;
+
+    /**
+     * @param size      Board size
+     * @param policy    Factory of players, called once per worker thread
+     */
+    public SimulationEngine(@NotNull Dimension size, @NotNull Supplier<? extends GamePolicy> policy) {
+        this.size = size;
+        this.policy = policy;
+    }
+
+    /**
+     * @param threads   Count of worker threads
+     * @return          Fluent api object
+     */
+    public SimulationEngine setThreads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param seed  Seed of first game
+     * @return      Fluent api object
+     */
+    public SimulationEngine setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * @param scrambleDepth Random walk length of boards, 0 means uniform shuffle
+     * @return              Fluent api object
+     */
+    public SimulationEngine setScrambleDepth(int scrambleDepth) {
+        this.scrambleDepth = scrambleDepth;
+        return this;
+    }
+
+    /**
+     * @param maxMoves  Moves count after which game is abandoned
+     * @return          Fluent api object
+     */
+    public SimulationEngine setMaxMoves(int maxMoves) {
+        this.maxMoves = maxMoves;
+        return this;
+    }
+
+    /**
+     * Play games and wait for all of them
+     *
+     * @param games Count of games
+     * @return      Summary of all games
+     * @throws InterruptedException Raises if waiting thread is interrupted
+     */
+    public SimulationReport run(int games) throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicInteger nextGame = new AtomicInteger();
+        final List<Future<SimulationReport>> workers = new ArrayList<>(threads);
+        final long start = System.nanoTime();
+
+        try {
+            for (int i = 0; i < threads; ++i) {
+                workers.add(executor.submit(() -> {
+                    final GamePolicy player = policy.get();
+                    final PuzzleGrid grid = new PuzzleGrid(size);
+                    final SimulationReport report = new SimulationReport();
+
+                    for (int game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+                        final int moves = play(grid, player, new PuzzleGenerator(seed + game * SEED_STEP));
+                        report.record(moves, grid.isOrdered());
+                    }
+                    return report;
+                }));
+            }
+
+            final SimulationReport report = new SimulationReport();
+            for (Future<SimulationReport> worker : workers)
+                report.merge(worker.get());
+
+            report.setNanos(System.nanoTime() - start);
+            return report;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation worker failed!", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param grid      Reused grid
+     * @param player    Policy of worker
+     * @param generator Generator of game
+     * @return          Count of moves
+     */
+    private int play(PuzzleGrid grid, GamePolicy player, PuzzleGenerator generator) {
+        if (scrambleDepth > 0)
+            grid.scramble(generator, scrambleDepth);
+        else
+            grid.shuffle(generator);
+
+        player.start(grid, generator);
+
+        int moves = 0;
+        while (!grid.isOrdered() && moves < maxMoves) {
+            final PuzzleGrid.Direction direction = player.next(grid);
+            if (direction == null || !grid.slide(direction, 1))
+                break;
+            ++moves;
+        }
+        return moves;
+    }
+
+    /**
+     * Run simulation from command line
+     *
+     * @param args  Policy (random, solver or reduction), board size, games count, threads count and scramble depth
+     * @throws Exception    Raises if simulation fails
+     */
+    public static void main(String[] args) throws Exception {
+        final String policyName = args.length > 0 ? args[0] : "random";
+        final String[] sizeParts = (args.length > 1 ? args[1] : "3x3").split("x");
+        final Dimension size = new Dimension(Integer.parseInt(sizeParts[0]), Integer.parseInt(sizeParts[1]));
+        final int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        final int scrambleDepth = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+
+        /** reduction of 32x32 board takes about 100 moves per cell */
+        final SimulationEngine engine = new SimulationEngine(size, createPolicy(policyName, size))
+                .setThreads(threads)
+                .setSeed(0)
+                .setScrambleDepth(scrambleDepth)
+                .setMaxMoves(Math.max(10_000, 200 * size.width * size.height));
+
+        System.out.print(engine.run(games));
+    }
+
+    /**
+     * @param name  Policy name
+     * @param size  Board size
+     * @return      Factory of policies
+     * @throws IOException  Raises if pattern databases or perfect table can not be loaded
+     */
+    private static Supplier<? extends GamePolicy> createPolicy(String name, Dimension size) throws IOException {
+        if ("random".equals(name))
+            return RandomPolicy::new;
+
+        if ("reduction".equals(name)) {
+            final ReductionSolver solver = new ReductionSolver();
+            return () -> new ScriptedPolicy(grid -> solver.solve(grid).getMoves());
+        }
+
+        if (!"solver".equals(name))
+            throw new IllegalArgumentException("Unknown policy " + name + "!");
+
+        /** databases are only mapped, they are built by PatternDatabaseBuilder */
+        final PatternPartition partition = PatternPartition.forSize(size);
+        final PatternDatabase[] databases = partition == null
+                ? null
+                : partition.load(PatternPartition.getDefaultDirectory());
+
+        if (partition != null && databases == null)
+            System.err.println("Pattern databases " + partition + " are not built, manhattan heuristic is used");
+
+        final IdaStarSolver solver = databases == null
+                ? new IdaStarSolver()
+                : new IdaStarSolver(PatternPartition.heuristic(databases));
+
+        if (PerfectTable.isSupported(size))
+            solver.setPerfectTable(PerfectTable.load(PerfectTable.getDefaultDirectory(), size));
+
+        return () -> new ScriptedPolicy(grid -> solver.solve(grid).getMoves());
+    }
+}
@@ -0,0 +1,105 @@
+package com.game.puzzle.engine;
+
+import java.util.Arrays;
+
+/**
+ * Summary of simulated games, length distribution
+ * contains moves count of ordered games only
+ */
+public class SimulationReport {
+    private long games;
+    private long ordered;
+    private long moves;
+    private long nanos;
+    private long[] lengths = new long[64];
+
+    /**
+     * @param moves     Moves count of game
+     * @param ordered   True if game ended with ordered board
+     */
+    void record(int moves, boolean ordered) {
+        ++this.games;
+        this.moves += moves;
+
+        if (ordered) {
+            ++this.ordered;
+            if (moves >= lengths.length)
+                lengths = Arrays.copyOf(lengths, Math.max(lengths.length * 2, moves + 1));
+            ++lengths[moves];
+        }
+    }
+
+    /**
+     * @param report    Report of other worker
+     */
+    void merge(SimulationReport report) {
+        games += report.games;
+        ordered += report.ordered;
+        moves += report.moves;
+
+        if (report.lengths.length > lengths.length)
+            lengths = Arrays.copyOf(lengths, report.lengths.length);
+        for (int i = 0; i < report.lengths.length; ++i)
+            lengths[i] += report.lengths[i];
+    }
+
+    void setNanos(long nanos) { this.nanos = nanos; }
+
+    public long getGames() { return games; }
+
+    public long getOrderedGames() { return ordered; }
+
+    public long getMoves() { return moves; }
+
+    public long getNanos() { return nanos; }
+
+    public double getGamesPerSecond() { return nanos == 0 ? 0 : games * 1e9 / nanos; }
+
+    public double getMovesPerSecond() { return nanos == 0 ? 0 : moves * 1e9 / nanos; }
+
+    /**
+     * @param length    Moves count
+     * @return          Count of ordered games with provided length
+     */
+    public long getLengthCount(int length) {
+        return length < lengths.length ? lengths[length] : 0;
+    }
+
+    /**
+     * @param percentile    Value between 0 and 100
+     * @return              Length of ordered games at percentile, -1 if there are no such games
+     */
+    public int getLengthPercentile(double percentile) {
+        final long rank = (long) Math.ceil(ordered * percentile / 100.0);
+        long count = 0;
+
+        for (int i = 0; i < lengths.length; ++i) {
+            count += lengths[i];
+            if (count > 0 && count >= rank)
+                return i;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(String.format(
+                "games=%d ordered=%d moves=%d time=%.1fms games/s=%.0f moves/s=%.0f%n",
+                games, ordered, moves, nanos / 1e6, getGamesPerSecond(), getMovesPerSecond()
+        ));
+
+        if (ordered > 0) {
+            builder.append(String.format(
+                    "length p50=%d p90=%d p99=%d max=%d%n",
+                    getLengthPercentile(50), getLengthPercentile(90),
+                    getLengthPercentile(99), getLengthPercentile(100)
+            ));
+
+            for (int i = 0; i < lengths.length; ++i) {
+                if (lengths[i] > 0)
+                    builder.append(String.format("%6d %d%n", i, lengths[i]));
+            }
+        }
+        return builder.toString();
+    }
+}
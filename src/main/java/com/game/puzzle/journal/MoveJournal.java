@@ -0,0 +1,318 @@
+package com.game.puzzle.journal;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Append only journal of moves. Every move is stored in 2 bits
+ * as ordinal of Direction, four moves per byte starting from
+ * lowest bits. File is appended through memory mapped chunks,
+ * count of moves in header is updated after every move so
+ * journal is readable even if game has not been closed.
+ * Count in header is the only length of journal, bytes
+ * after stored moves are ignored by readers.
+ *
+ * Header layout, little endian:
+ * - magic, version (int)
+ * - width, height (short)
+ * - moves count (long)
+ * - reserved up to 32 bytes
+ * - initial board, tile number of every cell (short)
+ */
+public class MoveJournal implements Closeable, PuzzleGrid.MoveListener {
+    static final int MAGIC = 0x504D4A31;
+    static final int VERSION = 1;
+    static final int COUNT_OFFSET = 12;
+    static final int BOARD_OFFSET = 32;
+
+    /** Extension of journal files */
+    public static final String EXTENSION = ".pmj";
+
+    /** Maximal size of mapped chunk, it holds 4M moves */
+    static final int CHUNK_SIZE = 1 << 20;
+
+    /** Size of the first chunk, next chunks double up to CHUNK_SIZE */
+    static final int MIN_CHUNK_SIZE = 1 << 12;
+
+    private final FileChannel channel;
+    private final int headerSize;
+
+    private MappedByteBuffer header;
+    private MappedByteBuffer chunk = null;
+    private long chunkStart = 0;
+    private int chunkSize = 0;
+    private long count = 0;
+
+    /**
+     * @param channel       Opened journal file
+     * @param cells         Count of board cells
+     * @param count         Count of moves already stored in file
+     * @throws IOException  Raises if file cannot be mapped
+     */
+    private MoveJournal(FileChannel channel, int cells, long count) throws IOException {
+        this.channel = channel;
+        this.headerSize = MoveJournal.getHeaderSize(cells);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+        this.header.order(ByteOrder.LITTLE_ENDIAN);
+        this.count = count;
+
+        mapChunk(count >>> 2);
+    }
+
+    /**
+     * Create new journal, existing file is overwritten
+     *
+     * @param file          Journal file
+     * @param initial       Board before first move
+     * @return              Opened journal
+     * @throws IOException  Raises if file cannot be created
+     */
+    public static MoveJournal create(@NotNull Path file, @NotNull BoardState initial) throws IOException {
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        final FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        try {
+            final MoveJournal journal = new MoveJournal(channel, initial.getCellCount(), 0);
+
+            journal.header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putShort((short) initial.getWidth())
+                    .putShort((short) initial.getHeight())
+                    .putLong(0);
+
+            journal.header.position(BOARD_OFFSET);
+            for (int cell = 0; cell < initial.getCellCount(); ++cell)
+                journal.header.putShort((short) initial.get(cell));
+
+            return journal;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open existing journal, next moves are appended after stored ones
+     *
+     * @param file          Journal created by create
+     * @return              Opened journal
+     * @throws IOException  Raises if file is not valid journal
+     */
+    public static MoveJournal open(@NotNull Path file) throws IOException {
+        return MoveJournal.open(file, MoveReplay.open(file));
+    }
+
+    /**
+     * @param file          Journal created by create
+     * @param replay        Replay of the same file, its moves are not replayed again
+     * @return              Opened journal
+     * @throws IOException  Raises if file cannot be mapped
+     */
+    private static MoveJournal open(Path file, MoveReplay replay) throws IOException {
+        final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            return new MoveJournal(channel, replay.getInitialState().getCellCount(), replay.getMoveCount());
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Find the newest journal that ends with provided board,
+     * saved game continues in it instead of new file
+     *
+     * @param directory Directory of journals
+     * @param state     Board of saved game
+     * @return          Journal opened for appending, null if no journal matches
+     */
+    public static MoveJournal resume(@NotNull Path directory, @NotNull BoardState state) {
+        final List<Path> files = MoveJournal.list(directory);
+        if (files.isEmpty())
+            return null;
+
+        final Path latest = files.get(files.size() - 1);
+        try {
+            final MoveReplay replay = MoveReplay.open(latest);
+            if (!replay.seek(replay.getMoveCount()).equals(state))
+                return null;
+
+            return MoveJournal.open(latest, replay);
+        } catch (IOException e) {
+            /** broken journal is left as it is, new one is started */
+            return null;
+        }
+    }
+
+    /**
+     * Delete the oldest journals, so directory does not grow without bound
+     *
+     * @param directory Directory of journals
+     * @param keep      Count of the newest journals that are kept
+     */
+    public static void prune(@NotNull Path directory, int keep) {
+        final List<Path> files = MoveJournal.list(directory);
+
+        for (int i = 0; i < files.size() - keep; ++i) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @param directory Directory of journals
+     * @return          Journal files sorted from the oldest, empty if directory does not exist
+     */
+    static List<Path> list(Path directory) {
+        final List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream)
+                files.add(file);
+        } catch (IOException e) {
+            return files;
+        }
+
+        files.sort(Comparator.comparing((Path file) -> {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }).thenComparing(Path::getFileName));
+        return files;
+    }
+
+    /**
+     * @return  Directory of journals in user home
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".puzzle", "journal");
+    }
+
+    /**
+     * @param cells Count of board cells
+     * @return      Size of header aligned to 8 bytes
+     */
+    static int getHeaderSize(int cells) {
+        return (BOARD_OFFSET + 2 * cells + 7) & ~7;
+    }
+
+    /**
+     * @return  Count of appended moves
+     */
+    public long getMoveCount() { return count; }
+
+    /**
+     * @param direction Direction in which tile moved
+     */
+    public void append(@NotNull PuzzleGrid.Direction direction) {
+        final long index = count >>> 2;
+        if (index - chunkStart >= chunkSize)
+            mapChunk(index);
+
+        final int position = (int) (index - chunkStart);
+        final int shift = (int) (count & 3) << 1;
+        chunk.put(position, (byte) (chunk.get(position) | direction.ordinal() << shift));
+
+        header.putLong(COUNT_OFFSET, ++count);
+    }
+
+    /**
+     * @param direction Direction in which tiles moved
+     * @param count     Count of moved tiles
+     */
+    public void append(@NotNull PuzzleGrid.Direction direction, int count) {
+        for (int i = 0; i < count; ++i)
+            append(direction);
+    }
+
+    /**
+     * Journal can be used directly as listener of grid
+     *
+     * @param direction Direction in which tiles moved
+     * @param count     Count of moved tiles
+     */
+    @Override
+    public void moved(PuzzleGrid.Direction direction, int count) {
+        append(direction, count);
+    }
+
+    /**
+     * Chunk is as big as moves stored before it, so unused
+     * tail of file is small even if it cannot be truncated
+     *
+     * @param index Index of first byte of moves inside chunk
+     */
+    private void mapChunk(long index) {
+        try {
+            chunkStart = index;
+            chunkSize = (int) Math.min(CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, index));
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, headerSize + index, chunkSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("Journal cannot be extended!", e);
+        }
+    }
+
+    /**
+     * Flush mapped pages to storage
+     */
+    public void force() {
+        header.force();
+        chunk.force();
+    }
+
+    /**
+     * Unused part of last chunk is cut off, so file ends at last byte
+     * of stored moves. Systems which do not truncate file with mapped
+     * pages keep the tail, count in header is still exact.
+     * Channel is closed even if pages cannot be flushed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (header == null)
+            return;
+
+        try {
+            force();
+        } finally {
+            header = null;
+            chunk = null;
+            try {
+                channel.truncate(headerSize + (count + 3) / 4);
+            } catch (IOException e) {
+                /** mapped pages are released only by garbage collector */
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
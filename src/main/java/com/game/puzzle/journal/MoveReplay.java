@@ -0,0 +1,220 @@
+package com.game.puzzle.journal;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only replay of journal mapped from file. Opening replays
+ * all moves once, checks that every move is legal and stores
+ * copy of board every interval moves, so any move index can
+ * be reached by replaying at most interval moves.
+ */
+public class MoveReplay {
+    /** Default count of moves between checkpoints */
+    public static final int DEFAULT_INTERVAL = 1 << 16;
+
+    private static final PuzzleGrid.Direction[] DIRECTIONS = PuzzleGrid.Direction.values();
+
+    private final BoardState initial;
+    private final ByteBuffer moves;
+    private final long count;
+    private final int interval;
+    private final BoardState[] checkpoints;
+
+    /**
+     * @param initial   Board before first move
+     * @param moves     Packed moves
+     * @param count     Count of moves
+     * @param interval  Count of moves between checkpoints
+     * @throws IOException Raises if journal contains illegal move
+     */
+    private MoveReplay(BoardState initial, ByteBuffer moves, long count, int interval) throws IOException {
+        this.initial = initial;
+        this.moves = moves;
+        this.count = count;
+        this.interval = interval;
+        this.checkpoints = new BoardState[(int) (count / interval) + 1];
+
+        final BoardState state = initial.copy();
+        checkpoints[0] = state.copy();
+
+        for (int i = 1; i < checkpoints.length; ++i) {
+            final long invalid = apply(state, (long) (i - 1) * interval, (long) i * interval);
+            if (invalid != -1)
+                throw new IOException("Journal contains illegal move at " + invalid + "!");
+
+            checkpoints[i] = state.copy();
+        }
+
+        final long invalid = apply(state, (long) (checkpoints.length - 1) * interval, count);
+        if (invalid != -1)
+            throw new IOException("Journal contains illegal move at " + invalid + "!");
+    }
+
+    /**
+     * @param file  Journal created by MoveJournal
+     * @return      Replay with default checkpoints interval
+     * @throws IOException  Raises if file is not valid journal
+     */
+    public static MoveReplay open(@NotNull Path file) throws IOException {
+        return open(file, DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param file      Journal created by MoveJournal
+     * @param interval  Count of moves between checkpoints
+     * @return          Replay
+     * @throws IOException  Raises if file is not valid journal
+     */
+    public static MoveReplay open(@NotNull Path file, int interval) throws IOException {
+        if (interval <= 0)
+            throw new IllegalArgumentException("Checkpoints interval must be positive!");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(MoveJournal.BOARD_OFFSET).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+
+            if (header.remaining() < MoveJournal.BOARD_OFFSET
+                    || header.getInt() != MoveJournal.MAGIC
+                    || header.getInt() != MoveJournal.VERSION)
+                throw new IOException("File " + file + " is not moves journal!");
+
+            final Dimension size = new Dimension(header.getShort(), header.getShort());
+            final long count = header.getLong();
+            final int cells = size.width * size.height;
+            final int headerSize = MoveJournal.getHeaderSize(cells);
+            final long bytes = (count + 3) / 4;
+
+            if (count < 0 || bytes > Integer.MAX_VALUE || channel.size() < headerSize + bytes)
+                throw new IOException("Moves journal " + file + " is truncated!");
+
+            final ByteBuffer board = channel.map(FileChannel.MapMode.READ_ONLY, MoveJournal.BOARD_OFFSET, 2L * cells)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            final int[] tiles = new int[cells];
+            for (int cell = 0; cell < cells; ++cell)
+                tiles[cell] = board.getShort();
+
+            return new MoveReplay(
+                    BoardState.of(tiles, size),
+                    channel.map(FileChannel.MapMode.READ_ONLY, headerSize, bytes),
+                    count,
+                    interval
+            );
+        }
+    }
+
+    public long getMoveCount() { return count; }
+
+    public int getInterval() { return interval; }
+
+    /**
+     * @return  Copy of board before first move
+     */
+    public BoardState getInitialState() { return initial.copy(); }
+
+    /**
+     * @param index Move index
+     * @return      Direction of move
+     */
+    public PuzzleGrid.Direction getMove(long index) {
+        if (index < 0 || index >= count)
+            throw new IndexOutOfBoundsException("Move " + index + " is outside of journal!");
+
+        return DIRECTIONS[(moves.get((int) (index >>> 2)) >> ((int) (index & 3) << 1)) & 3];
+    }
+
+    /**
+     * @param index Count of applied moves, 0 is initial board
+     * @return      New board after provided count of moves
+     */
+    public BoardState seek(long index) {
+        if (index < 0 || index > count)
+            throw new IndexOutOfBoundsException("Move " + index + " is outside of journal!");
+
+        final int checkpoint = (int) (index / interval);
+        final BoardState state = checkpoints[checkpoint].copy();
+
+        apply(state, (long) checkpoint * interval, index);
+        return state;
+    }
+
+    /**
+     * @param grid  Grid restored to board after provided count of moves
+     * @param index Count of applied moves, 0 is initial board
+     */
+    public void seek(@NotNull PuzzleGrid grid, long index) {
+        grid.setState(seek(index));
+    }
+
+    /**
+     * Apply range of journal moves to board, bytes are
+     * decoded at once and moves are applied without
+     * any allocations
+     *
+     * @param state Board after from moves
+     * @param from  Index of first applied move
+     * @param to    Index after last applied move
+     * @return      Index of first illegal move, -1 if all moves are legal
+     */
+    public long apply(@NotNull BoardState state, long from, long to) {
+        long index = from;
+
+        /** moves before first full byte */
+        for (; index < to && (index & 3) != 0; ++index)
+            if (!state.move(getMove(index)))
+                return index;
+
+        for (; index + 4 <= to; index += 4) {
+            final int packed = moves.get((int) (index >>> 2));
+
+            if (!state.move(DIRECTIONS[packed & 3])) return index;
+            if (!state.move(DIRECTIONS[(packed >> 2) & 3])) return index + 1;
+            if (!state.move(DIRECTIONS[(packed >> 4) & 3])) return index + 2;
+            if (!state.move(DIRECTIONS[(packed >> 6) & 3])) return index + 3;
+        }
+
+        for (; index < to; ++index)
+            if (!state.move(getMove(index)))
+                return index;
+
+        return -1;
+    }
+
+    /**
+     * Prints summary of journal and speed of full replay
+     *
+     * @param args  Journal file
+     * @throws IOException Raises if journal cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: MoveReplay <journal>");
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final MoveReplay replay = MoveReplay.open(Paths.get(args[0]));
+        final long nanos = System.nanoTime() - start;
+        final BoardState last = replay.seek(replay.getMoveCount());
+
+        System.out.printf(
+                "moves=%d ordered=%b replay=%.3fms (%.1fM moves/s)%n%s%n",
+                replay.getMoveCount(),
+                last.isOrdered(),
+                nanos / 1e6,
+                replay.getMoveCount() * 1e3 / Math.max(1, nanos),
+                last
+        );
+    }
+}
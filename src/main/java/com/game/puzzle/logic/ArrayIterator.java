@@ -3,11 +3,13 @@ package com.game.puzzle.logic;
 import java.awt.*;
 import javax.validation.constraints.NotNull;
 import java.lang.reflect.Array;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Small helper that helps with iterating
- * over two dimensional arrays
+ * over two dimensional arrays, grids of
+ * primitives should use IntGrid or ByteGrid
  *
  * @param <T>
  */
@@ -34,7 +36,8 @@ public class ArrayIterator<T> {
     @SuppressWarnings("unchecked")
     ArrayIterator(Class<? extends T> cls, @NotNull Dimension size) {
         this.size = size;
-        this.array = (T[][])Array.newInstance(cls, size.width, size.height);
+        /** array is indexed [y][x], so rows are allocated first */
+        this.array = (T[][])Array.newInstance(cls, size.height, size.width);
     }
 
     /**
@@ -54,19 +57,23 @@ public class ArrayIterator<T> {
      * Random shuffle 2D array
      */
     public ArrayIterator<T> shuffle() {
-        final ThreadLocalRandom localRandom = ThreadLocalRandom.current();
+        return shuffle(ThreadLocalRandom.current());
+    }
 
-        return this.map(
-                (element, x, y) -> {
-                    final int x1 = localRandom.nextInt(0, size.height);
-                    final int y1 = localRandom.nextInt(0, size.width);
+    /**
+     * Fisher-Yates shuffle, every order has the same probability
+     *
+     * @param random    Random numbers generator
+     */
+    public ArrayIterator<T> shuffle(@NotNull Random random) {
+        for (int i = size.width * size.height - 1; i > 0; --i) {
+            final int j = random.nextInt(i + 1);
 
-                    final T temp = array[y1][x1];
-                    array[y1][x1] = element;
-                    array[y][x] = temp;
-                    return null;
-                }
-        );
+            final T temp = array[j / size.width][j % size.width];
+            array[j / size.width][j % size.width] = array[i / size.width][i % size.width];
+            array[i / size.width][i % size.width] = temp;
+        }
+        return this;
     }
 
     /**
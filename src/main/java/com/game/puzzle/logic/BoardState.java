@@ -0,0 +1,293 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Compact primitive representation of puzzle board. Each cell
+ * stores number of the tile that is placed on it, the blank
+ * cell always stores the biggest number (cells - 1) so ordered
+ * board is board where every cell stores its own index.
+ *
+ * Blank index is tracked explicitly, it is never searched.
+ */
+public abstract class BoardState {
+    protected final int width;
+    protected final int height;
+    protected final int cells;
+    protected int blank;
+
+    BoardState(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = width * height;
+        this.blank = cells - 1;
+    }
+
+    /**
+     * @param size  Size of board
+     * @return      Ordered board, it picks the most compact representation
+     */
+    public static BoardState create(@NotNull Dimension size) {
+        if (size.width <= 0 || size.height <= 0)
+            throw new IllegalArgumentException("Board has been created with wrong dimensions!");
+
+        final int cells = size.width * size.height;
+        if (cells <= PackedBoardState.MAX_CELLS)
+            return new PackedBoardState(size.width, size.height);
+
+        if (cells <= ByteBoardState.MAX_CELLS)
+            return new ByteBoardState(size.width, size.height);
+
+        if (cells <= ShortBoardState.MAX_CELLS)
+            return new ShortBoardState(size.width, size.height);
+
+        throw new IllegalArgumentException("Board " + size.width + "x" + size.height + " is too big!");
+    }
+
+    /**
+     * @param tiles Tiles row by row, blank is marked as (tiles.length - 1)
+     * @param size  Size of board
+     * @return      Board with provided tiles order
+     */
+    public static BoardState of(@NotNull int[] tiles, @NotNull Dimension size) {
+        final BoardState state = BoardState.create(size);
+        if (tiles.length != state.cells)
+            throw new IllegalArgumentException("Tiles count does not match board size!");
+
+        final boolean[] used = new boolean[tiles.length];
+        for (int i = 0; i < tiles.length; ++i) {
+            final int tile = tiles[i];
+            if (tile < 0 || tile >= tiles.length || used[tile])
+                throw new IllegalArgumentException("Tiles are not permutation of board cells!");
+
+            used[tile] = true;
+            state.set(i, tile);
+            if (tile == state.cells - 1)
+                state.blank = i;
+        }
+        return state;
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public int getCellCount() { return cells; }
+
+    public Dimension getSize() { return new Dimension(width, height); }
+
+    /**
+     * @return  Index of blank cell
+     */
+    public int getBlank() { return blank; }
+
+    /**
+     * @return  Tile number stored in blank cell
+     */
+    public int getBlankTile() { return cells - 1; }
+
+    /**
+     * @param index Cell index, row by row
+     * @return      Tile number placed in cell
+     */
+    public abstract int get(int index);
+
+    /**
+     * Sets tile without tracking blank, caller
+     * have to keep blank index valid
+     *
+     * @param index Cell index
+     * @param tile  Tile number
+     */
+    abstract void set(int index, int tile);
+
+    /**
+     * @return  Independent copy of board
+     */
+    public abstract BoardState copy();
+
+    /**
+     * @return  True if every tile is placed in its own cell
+     */
+    public boolean isOrdered() {
+        for (int i = cells - 1; i >= 0; --i) {
+            if (get(i) != i)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks permutation parity, half of all tile
+     * orders can not be ordered by sliding
+     *
+     * @return  True if board can be ordered
+     */
+    public boolean isSolvable() {
+        int inversions = 0;
+        for (int i = 0; i < cells; ++i) {
+            final int tile = get(i);
+            if (tile == cells - 1)
+                continue;
+
+            for (int j = i + 1; j < cells; ++j) {
+                final int other = get(j);
+                if (other != cells - 1 && other < tile)
+                    ++inversions;
+            }
+        }
+
+        /** on even width boards every vertical blank move flips inversions parity */
+        if (width % 2 == 0)
+            inversions += height - 1 - blank / width;
+
+        return inversions % 2 == 0;
+    }
+
+    /**
+     * @param direction Direction in which tile moves into blank
+     * @return          Cell index of tile that can be moved, -1 if there is no such tile
+     */
+    public int getMovableCell(@NotNull PuzzleGrid.Direction direction) {
+        final int x = blank % width - direction.offsetX;
+        final int y = blank / width - direction.offsetY;
+
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return -1;
+
+        return y * width + x;
+    }
+
+    /**
+     * Moves tile that is adjacent to blank in provided direction
+     *
+     * @param direction Direction in which tile moves
+     * @return          True if tile has been moved
+     */
+    public boolean move(@NotNull PuzzleGrid.Direction direction) {
+        final int cell = getMovableCell(direction);
+        if (cell == -1)
+            return false;
+
+        moveBlank(cell);
+        return true;
+    }
+
+    /**
+     * Moves run of tiles in provided direction in single operation,
+     * tiles between blank and cell count steps away from blank are moved
+     *
+     * @param direction Direction in which tiles move
+     * @param count     Count of moved tiles
+     * @return          True if tiles have been moved
+     */
+    public boolean shift(@NotNull PuzzleGrid.Direction direction, int count) {
+        if (count <= 0)
+            return count == 0;
+
+        final int x = blank % width - direction.offsetX * count;
+        final int y = blank / width - direction.offsetY * count;
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+
+        if (direction.offsetY == 0) {
+            shiftRow(direction.offsetX, count);
+        } else {
+            final int step = direction.offsetY * width;
+            for (int i = 0; i < count; ++i)
+                moveBlank(blank - step);
+        }
+        return true;
+    }
+
+    /**
+     * Moves already validated run of tiles inside blank row
+     *
+     * @param offsetX   Horizontal direction of tiles move, 1 or -1
+     * @param count     Count of moved tiles
+     */
+    void shiftRow(int offsetX, int count) {
+        for (int i = 0; i < count; ++i)
+            moveBlank(blank - offsetX);
+    }
+
+    /**
+     * Swap blank with tile, it does not validate if cell is adjacent
+     *
+     * @param cell  Cell index of tile
+     */
+    public void moveBlank(int cell) {
+        set(blank, get(cell));
+        set(cell, cells - 1);
+        blank = cell;
+    }
+
+    /**
+     * Swap two cells, it keeps blank index valid
+     *
+     * @param a First cell index
+     * @param b Second cell index
+     */
+    public void swap(int a, int b) {
+        final int tile = get(a);
+        set(a, get(b));
+        set(b, tile);
+
+        if (blank == a)
+            blank = b;
+        else if (blank == b)
+            blank = a;
+    }
+
+    /**
+     * Place every tile in its own cell, blank goes to right bottom corner
+     */
+    public void reset() {
+        for (int i = cells - 1; i >= 0; --i)
+            set(i, i);
+        blank = cells - 1;
+    }
+
+    /**
+     * @return  Tiles row by row
+     */
+    public int[] toArray() {
+        final int[] tiles = new int[cells];
+        copyTo(tiles);
+        return tiles;
+    }
+
+    /**
+     * @param tiles Target of tiles row by row, at least cells long
+     */
+    public void copyTo(@NotNull int[] tiles) {
+        for (int i = cells - 1; i >= 0; --i)
+            tiles[i] = get(i);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof BoardState))
+            return false;
+
+        final BoardState other = (BoardState) obj;
+        return other.width == width
+                && other.height == height
+                && Arrays.equals(other.toArray(), toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + Arrays.toString(toArray());
+    }
+}
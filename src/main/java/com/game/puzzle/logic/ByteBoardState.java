@@ -0,0 +1,81 @@
+package com.game.puzzle.logic;
+
+import java.util.Arrays;
+
+/**
+ * Board with up to 256 cells stored in flat byte array,
+ * row by row, values are treated as unsigned
+ */
+public class ByteBoardState extends BoardState {
+    static final int MAX_CELLS = 256;
+
+    private final byte[] tiles;
+
+    ByteBoardState(int width, int height) {
+        super(width, height);
+        this.tiles = new byte[cells];
+
+        for (int i = cells - 1; i >= 0; --i)
+            tiles[i] = (byte) i;
+    }
+
+    private ByteBoardState(ByteBoardState state) {
+        super(state.width, state.height);
+        this.tiles = state.tiles.clone();
+        this.blank = state.blank;
+    }
+
+    @Override
+    public int get(int index) {
+        return tiles[index] & 0xFF;
+    }
+
+    @Override
+    void set(int index, int tile) {
+        tiles[index] = (byte) tile;
+    }
+
+    @Override
+    public void copyTo(int[] tiles) {
+        for (int i = 0; i < cells; ++i)
+            tiles[i] = this.tiles[i] & 0xFF;
+    }
+
+    @Override
+    public ByteBoardState copy() {
+        return new ByteBoardState(this);
+    }
+
+    @Override
+    public void moveBlank(int cell) {
+        tiles[blank] = tiles[cell];
+        tiles[cell] = (byte) (cells - 1);
+        blank = cell;
+    }
+
+    @Override
+    void shiftRow(int offsetX, int count) {
+        if (offsetX > 0) {
+            System.arraycopy(tiles, blank - count, tiles, blank - count + 1, count);
+            blank -= count;
+        } else {
+            System.arraycopy(tiles, blank + 1, tiles, blank, count);
+            blank += count;
+        }
+        tiles[blank] = (byte) (cells - 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ByteBoardState) {
+            final ByteBoardState other = (ByteBoardState) obj;
+            return other.width == width && other.height == height && Arrays.equals(other.tiles, tiles);
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tiles);
+    }
+}
@@ -0,0 +1,260 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Two dimensional grid of unsigned bytes stored in single flat
+ * array, row by row. It has the same layout as IntGrid and holds
+ * small values, e.g. distances, in quarter of memory.
+ */
+public final class ByteGrid {
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    /**
+     * Create grid filled with zeros
+     *
+     * @param width     Count of columns
+     * @param height    Count of rows
+     */
+    public ByteGrid(int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Grid has been created with wrong dimensions!");
+
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+    }
+
+    /**
+     * @param size  Size of grid
+     */
+    public ByteGrid(@NotNull Dimension size) {
+        this(size.width, size.height);
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public int getCellCount() { return cells.length; }
+
+    public Dimension getSize() { return new Dimension(width, height); }
+
+    /**
+     * @return  Backing array row by row, changes are visible in grid
+     */
+    public byte[] array() { return cells; }
+
+    /**
+     * @param x Column
+     * @param y Row
+     * @return  Index of cell
+     */
+    public int index(int x, int y) { return y * width + x; }
+
+    /**
+     * @param index Index of cell
+     * @return      Column of cell
+     */
+    public int getX(int index) { return index % width; }
+
+    /**
+     * @param index Index of cell
+     * @return      Row of cell
+     */
+    public int getY(int index) { return index / width; }
+
+    /**
+     * @param x Column
+     * @param y Row
+     * @return  True if cell is inside grid
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public int get(int index) { return cells[index] & 0xFF; }
+
+    public int get(int x, int y) { return cells[y * width + x] & 0xFF; }
+
+    /**
+     * @param index Index of cell
+     * @param value Value between 0-255
+     */
+    public ByteGrid set(int index, int value) {
+        cells[index] = (byte) value;
+        return this;
+    }
+
+    /**
+     * @param x     Column
+     * @param y     Row
+     * @param value Value between 0-255
+     */
+    public ByteGrid set(int x, int y, int value) {
+        cells[y * width + x] = (byte) value;
+        return this;
+    }
+
+    /**
+     * @param value Value of all cells
+     */
+    public ByteGrid fill(int value) {
+        Arrays.fill(cells, (byte) value);
+        return this;
+    }
+
+    /**
+     * @param source    Grid of the same size
+     */
+    public ByteGrid copyFrom(@NotNull ByteGrid source) {
+        checkSize(source.width, source.height);
+        System.arraycopy(source.cells, 0, cells, 0, cells.length);
+        return this;
+    }
+
+    /**
+     * @return  Independent copy of grid
+     */
+    public ByteGrid copy() {
+        return new ByteGrid(width, height).copyFrom(this);
+    }
+
+    /**
+     * @param other Grid of the same size
+     * @return      True if all cells are equal
+     */
+    public boolean contentEquals(@NotNull ByteGrid other) {
+        return other.width == width && other.height == height && Arrays.equals(other.cells, cells);
+    }
+
+    /**
+     * @param other Grid of the same size
+     * @param from  Index of first compared cell
+     * @return      Index of first cell that differs, -1 if rest of grids is equal
+     */
+    public int mismatch(@NotNull ByteGrid other, int from) {
+        checkSize(other.width, other.height);
+
+        final int found = Arrays.mismatch(cells, from, cells.length, other.cells, from, cells.length);
+        return found == -1 ? -1 : from + found;
+    }
+
+    /**
+     * @param value Searched value between 0-255
+     * @return      Index of first cell with value, -1 if there is no such cell
+     */
+    public int indexOf(int value) {
+        return indexOf(value, 0);
+    }
+
+    /**
+     * @param value Searched value between 0-255
+     * @param from  Index of first checked cell
+     * @return      Index of first cell with value, -1 if there is no such cell
+     */
+    public int indexOf(int value, int from) {
+        final byte searched = (byte) value;
+        for (int i = from; i < cells.length; ++i)
+            if (cells[i] == searched)
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * @param a First cell index
+     * @param b Second cell index
+     */
+    public ByteGrid swap(int a, int b) {
+        final byte value = cells[a];
+        cells[a] = cells[b];
+        cells[b] = value;
+        return this;
+    }
+
+    /**
+     * Gather cells of source in provided order, target
+     * cell i gets value of source cell order[i]
+     *
+     * @param source    Grid of the same size, it must not be target
+     * @param order     Source index of every cell
+     */
+    public ByteGrid permute(@NotNull ByteGrid source, @NotNull IntGrid order) {
+        checkSize(source.width, source.height);
+        checkSize(order.getWidth(), order.getHeight());
+
+        if (source == this)
+            throw new IllegalArgumentException("Grid cannot be permuted in place!");
+
+        final int[] indices = order.array();
+        for (int i = 0; i < cells.length; ++i)
+            cells[i] = source.cells[indices[i]];
+        return this;
+    }
+
+    /**
+     * Random shuffle grid
+     */
+    public ByteGrid shuffle() {
+        return shuffle(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Fisher-Yates shuffle, every order has the same probability
+     *
+     * @param random    Random numbers generator
+     */
+    public ByteGrid shuffle(@NotNull Random random) {
+        for (int i = cells.length - 1; i > 0; --i)
+            swap(i, random.nextInt(i + 1));
+        return this;
+    }
+
+    /**
+     * @param consumer  Function called with every cell, row by row
+     */
+    public void forEach(@NotNull IntGrid.CellConsumer consumer) {
+        for (int i = 0; i < cells.length; ++i)
+            consumer.accept(i, cells[i] & 0xFF);
+    }
+
+    /**
+     * @param operator  Function that returns new value of every cell
+     */
+    public ByteGrid map(@NotNull IntGrid.CellOperator operator) {
+        for (int i = 0; i < cells.length; ++i)
+            cells[i] = (byte) operator.apply(i, cells[i] & 0xFF);
+        return this;
+    }
+
+    private void checkSize(int width, int height) {
+        if (width != this.width || height != this.height)
+            throw new IllegalArgumentException("Grid size does not match!");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ByteGrid && contentEquals((ByteGrid) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * width + Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder().append(width).append('x').append(height).append('[');
+        for (int i = 0; i < cells.length; ++i)
+            builder.append(i == 0 ? "" : ", ").append(cells[i] & 0xFF);
+
+        return builder.append(']').toString();
+    }
+}
@@ -0,0 +1,338 @@
+package com.game.puzzle.logic;
+
+import com.game.puzzle.metrics.Metrics;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadProgressListener;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Iterator;
+
+/**
+ * Decodes images through ImageReader with source subsampling
+ * and region decoding, memory and time of decode depends
+ * on requested size instead of size of file
+ */
+public class ImageDecoder {
+    /**
+     * Progress of decoding
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param percentage    Decoded percentage between 0-100
+         */
+        void progress(float percentage);
+    }
+
+    private ProgressListener progressListener = null;
+    private ImageScaler.Policy policy = ImageScaler.Policy.BALANCED;
+    private boolean regionPerRow = false;
+
+    /**
+     * @param progressListener  Listener called while decoding
+     * @return                  Decoder
+     */
+    public ImageDecoder setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * @param policy    Policy of scaling subsampled image to exact size
+     * @return          Decoder
+     */
+    public ImageDecoder setPolicy(@NotNull ImageScaler.Policy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    /**
+     * @param regionPerRow  Decode every row of tiles as separate region,
+     *                      lowers memory but formats like JPEG are read
+     *                      from beginning for every region
+     * @return              Decoder
+     */
+    public ImageDecoder setRegionPerRow(boolean regionPerRow) {
+        this.regionPerRow = regionPerRow;
+        return this;
+    }
+
+    /**
+     * Reads only header of image
+     *
+     * @param url           Image location
+     * @return              Size of image
+     * @throws IOException  Raises if image cannot be read
+     */
+    public static Dimension getSize(@NotNull URL url) throws IOException {
+        try (Source source = new Source(url)) {
+            return new Dimension(source.reader.getWidth(0), source.reader.getHeight(0));
+        }
+    }
+
+    /**
+     * Decode image subsampled to size not smaller than maximum size
+     *
+     * @param url           Image location
+     * @param maxSize       Maximum size of image, null decodes full image
+     * @return              Decoded image
+     * @throws IOException  Raises if image cannot be read
+     */
+    public BufferedImage decode(@NotNull URL url, Dimension maxSize) throws IOException {
+        try (Source source = new Source(url)) {
+            final Rectangle region = new Rectangle(source.reader.getWidth(0), source.reader.getHeight(0));
+            final BufferedImage image = read(source, region, maxSize, 0, 1);
+
+            /** subsampling is integer, scale remaining part to fit in maximum size */
+            if (maxSize == null || (image.getWidth() <= maxSize.width && image.getHeight() <= maxSize.height))
+                return image;
+
+            final double ratio = Math.min(
+                    (double) maxSize.width / image.getWidth(),
+                    (double) maxSize.height / image.getHeight()
+            );
+            return ImageScaler.scale(image, new Dimension(
+                    Math.max(1, (int) Math.round(image.getWidth() * ratio)),
+                    Math.max(1, (int) Math.round(image.getHeight() * ratio))
+            ), policy);
+        }
+    }
+
+    /**
+     * Decode only region of image and scale it to exact size
+     *
+     * @param url           Image location
+     * @param region        Region of source image
+     * @param size          Size of decoded region, null keeps source size
+     * @return              Decoded region
+     * @throws IOException  Raises if image cannot be read
+     */
+    public BufferedImage decodeRegion(@NotNull URL url, @NotNull Rectangle region, Dimension size) throws IOException {
+        try (Source source = new Source(url)) {
+            return ImageDecoder.resize(read(source, region, size, 0, 1), size, policy);
+        }
+    }
+
+    /**
+     * Decode image subsampled to size of all tiles and cut it, if region
+     * per row is enabled every row of tiles is decoded separately
+     * so only single row of tiles is held in memory while decoding
+     *
+     * @param url           Image location
+     * @param parts         Total number of parts to be cutted
+     * @param cellSize      Size of single tile, null keeps source size
+     * @return              Array of tiles
+     * @throws IOException  Raises if image cannot be read
+     */
+    public ArrayIterator<BufferedImage> decodeTiles(
+            @NotNull URL url,
+            @NotNull Dimension parts,
+            Dimension cellSize) throws IOException {
+        try (Source source = new Source(url)) {
+            final Dimension sourceCell = new Dimension(
+                    source.reader.getWidth(0) / parts.width,
+                    source.reader.getHeight(0) / parts.height
+            );
+
+            if (sourceCell.width <= 0 || sourceCell.height <= 0)
+                throw new IOException("Image is too small to be cut into " + parts.width + "x" + parts.height + " parts!");
+
+            final BufferedImage[] tiles = new BufferedImage[parts.width * parts.height];
+            final int bands = regionPerRow ? parts.height : 1;
+            final int rowsPerBand = parts.height / bands;
+
+            for (int band = 0; band < bands; ++band) {
+                final Rectangle region = new Rectangle(
+                        0,
+                        band * rowsPerBand * sourceCell.height,
+                        parts.width * sourceCell.width,
+                        rowsPerBand * sourceCell.height
+                );
+                final BufferedImage decoded = read(
+                        source,
+                        region,
+                        cellSize == null ? null : new Dimension(cellSize.width * parts.width, cellSize.height * rowsPerBand),
+                        band,
+                        bands
+                );
+
+                /** subsampled cell size, decoded region is never smaller than requested */
+                final int cellWidth = decoded.getWidth() / parts.width;
+                final int cellHeight = decoded.getHeight() / rowsPerBand;
+
+                for (int y = 0; y < rowsPerBand; ++y) {
+                    for (int x = 0; x < parts.width; ++x) {
+                        tiles[(band * rowsPerBand + y) * parts.width + x] = ImageDecoder.resize(
+                                decoded.getSubimage(x * cellWidth, y * cellHeight, cellWidth, cellHeight),
+                                cellSize,
+                                policy
+                        );
+                    }
+                }
+            }
+
+            return new ArrayIterator<>(BufferedImage.class, parts).map(
+                    (element, x, y) -> tiles[y * parts.width + x]
+            );
+        }
+    }
+
+    /**
+     * @param image     Decoded image
+     * @param size      Exact size, null keeps image size
+     * @param policy    Scaling policy
+     * @return          Image of exact size
+     */
+    private static BufferedImage resize(BufferedImage image, Dimension size, ImageScaler.Policy policy) {
+        if (size == null || (image.getWidth() == size.width && image.getHeight() == size.height))
+            return image;
+
+        return ImageScaler.scale(image, size, policy);
+    }
+
+    /**
+     * @param source    Opened reader
+     * @param region    Region of source image
+     * @param size      Minimum size of decoded region, null decodes all pixels
+     * @param step      Index of current read, used in progress
+     * @param steps     Total count of reads, used in progress
+     * @return          Subsampled region
+     * @throws IOException  Raises if image cannot be read
+     */
+    private BufferedImage read(
+            Source source,
+            Rectangle region,
+            Dimension size,
+            int step,
+            int steps) throws IOException {
+        final ImageReadParam param = source.reader.getDefaultReadParam();
+        param.setSourceRegion(region);
+
+        /**
+         * Largest integer subsampling which keeps region
+         * not smaller than requested size
+         */
+        if (size != null) {
+            final int subsampling = Math.max(1, Math.min(
+                    region.width / Math.max(1, size.width),
+                    region.height / Math.max(1, size.height)
+            ));
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+
+        final Progress progress = progressListener == null
+                ? null
+                : new Progress(progressListener, step, steps);
+
+        if (progress != null)
+            source.reader.addIIOReadProgressListener(progress);
+
+        final long start = Metrics.start();
+        try {
+            final BufferedImage image = source.reader.read(0, param);
+
+            if (start != 0)
+                Metrics.imageDecode(start, source.url.toString(), region.width, region.height, image.getWidth(), image.getHeight());
+            return image;
+        } finally {
+            if (progress != null)
+                source.reader.removeIIOReadProgressListener(progress);
+        }
+    }
+
+    /**
+     * Reader opened on image stream, stream is cached
+     * in memory so image can be read many times
+     */
+    private static final class Source implements AutoCloseable {
+        final URL url;
+        final InputStream input;
+        final ImageInputStream stream;
+        final ImageReader reader;
+
+        Source(URL url) throws IOException {
+            if (url == null)
+                throw new IOException("Image resource does not exist!");
+
+            this.url = url;
+            this.input = url.openStream();
+            this.stream = new MemoryCacheImageInputStream(input);
+
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                close();
+                throw new IOException("Unsupported image format of " + url + "!");
+            }
+
+            this.reader = readers.next();
+            this.reader.setInput(stream, false, true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (reader != null)
+                reader.dispose();
+
+            try {
+                stream.close();
+            } finally {
+                input.close();
+            }
+        }
+    }
+
+    /**
+     * Maps progress of single read into progress of all reads
+     */
+    private static final class Progress implements IIOReadProgressListener {
+        private final ProgressListener listener;
+        private final int step;
+        private final int steps;
+
+        Progress(ProgressListener listener, int step, int steps) {
+            this.listener = listener;
+            this.step = step;
+            this.steps = steps;
+        }
+
+        private void report(float percentage) {
+            listener.progress((step * 100f + percentage) / steps);
+        }
+
+        @Override
+        public void imageStarted(ImageReader source, int imageIndex) { report(0); }
+
+        @Override
+        public void imageProgress(ImageReader source, float percentageDone) { report(percentageDone); }
+
+        @Override
+        public void imageComplete(ImageReader source) { report(100); }
+
+        @Override
+        public void sequenceStarted(ImageReader source, int minIndex) {}
+
+        @Override
+        public void sequenceComplete(ImageReader source) {}
+
+        @Override
+        public void thumbnailStarted(ImageReader source, int imageIndex, int thumbnailIndex) {}
+
+        @Override
+        public void thumbnailProgress(ImageReader source, float percentageDone) {}
+
+        @Override
+        public void thumbnailComplete(ImageReader source) {}
+
+        @Override
+        public void readAborted(ImageReader source) {}
+    }
+}
@@ -0,0 +1,374 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Scales buffered images writing pixels directly into
+ * TYPE_INT_RGB raster, bands of rows are scaled in parallel
+ */
+public final class ImageScaler {
+    /**
+     * Quality versus speed policy of scaling
+     */
+    public enum Policy {
+        /** nearest neighbour, reads only required source rows */
+        SPEED,
+
+        /** bilinear interpolation of four source pixels */
+        BALANCED,
+
+        /** area average of all covered source pixels when downscaling, bilinear when upscaling */
+        QUALITY
+    }
+
+    private static final int BAND_ROWS = 16;
+    private static final int FRACTION_BITS = 8;
+    private static final int FRACTION_ONE = 1 << FRACTION_BITS;
+
+    private ImageScaler() {}
+
+    /**
+     * @param source    Source image
+     * @param size      Size of scaled image
+     * @param policy    Scaling policy
+     * @return          New TYPE_INT_RGB image
+     */
+    public static BufferedImage scale(@NotNull BufferedImage source, @NotNull Dimension size, @NotNull Policy policy) {
+        return scale(source, size, policy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param source    Source image
+     * @param size      Size of scaled image
+     * @param policy    Scaling policy
+     * @param pool      Pool used to scale bands of rows
+     * @return          New TYPE_INT_RGB image
+     */
+    public static BufferedImage scale(
+            @NotNull BufferedImage source,
+            @NotNull Dimension size,
+            @NotNull Policy policy,
+            @NotNull ForkJoinPool pool) {
+        final BufferedImage target = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        final int[] pixels = ImageScaler.getPixels(target);
+        final RowReader reader = new RowReader(RowReader.isDirect(source) ? source : ImageScaler.convert(source));
+
+        final boolean downscale = size.width < source.getWidth() || size.height < source.getHeight();
+        final Policy resolved = policy == Policy.QUALITY && !downscale ? Policy.BALANCED : policy;
+
+        ImageScaler.forEachBand(pool, size.height, (from, to) -> {
+            switch (resolved) {
+                case SPEED:
+                    scaleNearest(reader, pixels, size, from, to);
+                    break;
+
+                case BALANCED:
+                    scaleBilinear(reader, pixels, size, from, to);
+                    break;
+
+                default:
+                    scaleAreaAverage(reader, pixels, size, from, to);
+            }
+        });
+
+        return target;
+    }
+
+    /**
+     * Copy region of TYPE_INT_RGB image into new images,
+     * rows of all regions are copied in parallel
+     *
+     * @param source    TYPE_INT_RGB image created by scale
+     * @param parts     Grid of regions
+     * @param cell      Size of single region
+     * @param pool      Pool used to copy rows
+     * @return          Regions row by row
+     */
+    static BufferedImage[] split(
+            @NotNull BufferedImage source,
+            @NotNull Dimension parts,
+            @NotNull Dimension cell,
+            @NotNull ForkJoinPool pool) {
+        final int[] sourcePixels = ImageScaler.getPixels(source);
+        final int stride = source.getWidth();
+        final BufferedImage[] regions = new BufferedImage[parts.width * parts.height];
+        final int[][] regionPixels = new int[regions.length][];
+
+        for (int i = 0; i < regions.length; ++i) {
+            regions[i] = new BufferedImage(cell.width, cell.height, BufferedImage.TYPE_INT_RGB);
+            regionPixels[i] = ImageScaler.getPixels(regions[i]);
+        }
+
+        ImageScaler.forEachBand(pool, parts.height * cell.height, (from, to) -> {
+            for (int row = from; row < to; ++row) {
+                final int regionY = row / cell.height;
+                final int offset = (row % cell.height) * cell.width;
+
+                for (int regionX = 0; regionX < parts.width; ++regionX) {
+                    System.arraycopy(
+                            sourcePixels, row * stride + regionX * cell.width,
+                            regionPixels[regionY * parts.width + regionX], offset,
+                            cell.width
+                    );
+                }
+            }
+        });
+
+        return regions;
+    }
+
+    /**
+     * Draw image with custom color model into TYPE_INT_RGB
+     * image, Java2D handles its color space conversion
+     *
+     * @param image Source image
+     * @return      Converted image
+     */
+    private static BufferedImage convert(BufferedImage image) {
+        final BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        final Graphics2D ctx = converted.createGraphics();
+        ctx.drawImage(image, 0, 0, null);
+        ctx.dispose();
+        return converted;
+    }
+
+    /**
+     * @param image TYPE_INT_RGB image
+     * @return      Pixels stored in raster
+     */
+    private static int[] getPixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @FunctionalInterface
+    private interface BandTask {
+        void run(int from, int to);
+    }
+
+    /**
+     * @param pool  Pool used to run bands
+     * @param rows  Total rows count
+     * @param task  Task called with rows range of every band
+     */
+    private static void forEachBand(ForkJoinPool pool, int rows, BandTask task) {
+        final int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+
+        pool.submit(() -> IntStream.range(0, bands).parallel().forEach(
+                band -> task.run(band * BAND_ROWS, Math.min(rows, (band + 1) * BAND_ROWS))
+        )).join();
+    }
+
+    private static void scaleNearest(RowReader reader, int[] pixels, Dimension size, int from, int to) {
+        final int[] columns = new int[size.width];
+
+        for (int x = 0; x < size.width; ++x)
+            columns[x] = (int) (((2L * x + 1) * reader.width) / (2L * size.width));
+
+        /** only sampled pixels are read, straight into target raster */
+        for (int y = from; y < to; ++y)
+            reader.gather((int) (((2L * y + 1) * reader.height) / (2L * size.height)), columns, pixels, y * size.width);
+    }
+
+    private static void scaleBilinear(RowReader reader, int[] pixels, Dimension size, int from, int to) {
+        final int[] columns = new int[size.width * 2];
+        final int[] weights = new int[size.width];
+        final int[] top = new int[columns.length];
+        final int[] bottom = new int[columns.length];
+
+        /** left and right neighbour of every sample are interleaved */
+        for (int x = 0; x < size.width; ++x) {
+            final int position = ImageScaler.samplePosition(x, reader.width, size.width);
+            columns[2 * x] = position >> FRACTION_BITS;
+            columns[2 * x + 1] = Math.min(columns[2 * x] + 1, reader.width - 1);
+            weights[x] = position & (FRACTION_ONE - 1);
+        }
+
+        int topRow = -1;
+        for (int y = from; y < to; ++y) {
+            final int position = ImageScaler.samplePosition(y, reader.height, size.height);
+            final int sourceY = position >> FRACTION_BITS;
+            final int weightY = position & (FRACTION_ONE - 1);
+
+            if (sourceY != topRow) {
+                reader.gather(sourceY, columns, top, 0);
+                reader.gather(Math.min(sourceY + 1, reader.height - 1), columns, bottom, 0);
+                topRow = sourceY;
+            }
+
+            final int offset = y * size.width;
+            for (int x = 0; x < size.width; ++x) {
+                pixels[offset + x] = ImageScaler.blend(
+                        ImageScaler.blend(top[2 * x], top[2 * x + 1], weights[x]),
+                        ImageScaler.blend(bottom[2 * x], bottom[2 * x + 1], weights[x]),
+                        weightY
+                );
+            }
+        }
+    }
+
+    private static void scaleAreaAverage(RowReader reader, int[] pixels, Dimension size, int from, int to) {
+        final int[] row = new int[reader.width];
+        final int[] columns = new int[reader.width];
+        final long[] red = new long[size.width];
+        final long[] green = new long[size.width];
+        final long[] blue = new long[size.width];
+        final long[] counts = new long[size.width];
+
+        for (int x = 0; x < reader.width; ++x)
+            columns[x] = (int) ((long) x * size.width / reader.width);
+
+        for (int y = from; y < to; ++y) {
+            final int first = (int) ((long) y * reader.height / size.height);
+            final int last = Math.max(first + 1, (int) ((long) (y + 1) * reader.height / size.height));
+
+            Arrays.fill(red, 0);
+            Arrays.fill(green, 0);
+            Arrays.fill(blue, 0);
+            Arrays.fill(counts, 0);
+
+            for (int sourceY = first; sourceY < last; ++sourceY) {
+                reader.read(sourceY, row);
+
+                for (int x = 0; x < reader.width; ++x) {
+                    final int rgb = row[x];
+                    final int column = columns[x];
+
+                    red[column] += (rgb >> 16) & 0xFF;
+                    green[column] += (rgb >> 8) & 0xFF;
+                    blue[column] += rgb & 0xFF;
+                    ++counts[column];
+                }
+            }
+
+            final int offset = y * size.width;
+            for (int x = 0; x < size.width; ++x) {
+                final long count = Math.max(1, counts[x]);
+                pixels[offset + x] = (int) ((red[x] / count) << 16 | (green[x] / count) << 8 | blue[x] / count);
+            }
+        }
+    }
+
+    /**
+     * @param target        Target coordinate
+     * @param sourceSize    Source axis size
+     * @param targetSize    Target axis size
+     * @return              Source coordinate of pixel center in fixed point
+     */
+    private static int samplePosition(int target, int sourceSize, int targetSize) {
+        final long position = ((2L * target + 1) * sourceSize * FRACTION_ONE) / (2L * targetSize) - FRACTION_ONE / 2;
+        return (int) Math.max(0, Math.min(position, (long) (sourceSize - 1) * FRACTION_ONE));
+    }
+
+    /**
+     * @param a         First RGB color
+     * @param b         Second RGB color
+     * @param weight    Weight of second color in fixed point
+     * @return          Interpolated color
+     */
+    private static int blend(int a, int b, int weight) {
+        final int inverse = FRACTION_ONE - weight;
+        final int red = (((a >> 16) & 0xFF) * inverse + ((b >> 16) & 0xFF) * weight) >> FRACTION_BITS;
+        final int green = (((a >> 8) & 0xFF) * inverse + ((b >> 8) & 0xFF) * weight) >> FRACTION_BITS;
+        final int blue = ((a & 0xFF) * inverse + (b & 0xFF) * weight) >> FRACTION_BITS;
+        return red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * Reads rows of packed integer or 3 byte BGR
+     * source image directly from its raster
+     */
+    private static final class RowReader {
+        final int width;
+        final int height;
+
+        private final int[] ints;
+        private final byte[] bytes;
+        private final int stride;
+        private final int offset;
+
+        RowReader(BufferedImage image) {
+            this.width = image.getWidth();
+            this.height = image.getHeight();
+
+            final WritableRaster raster = image.getRaster();
+            final DataBuffer buffer = raster.getDataBuffer();
+
+            if (buffer instanceof DataBufferInt) {
+                this.ints = ((DataBufferInt) buffer).getData();
+                this.bytes = null;
+                this.stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+                this.offset = buffer.getOffset()
+                        - raster.getSampleModelTranslateY() * stride
+                        - raster.getSampleModelTranslateX();
+            } else {
+                this.ints = null;
+                this.bytes = ((DataBufferByte) buffer).getData();
+                this.stride = ((PixelInterleavedSampleModel) raster.getSampleModel()).getScanlineStride();
+                this.offset = buffer.getOffset()
+                        - raster.getSampleModelTranslateY() * stride
+                        - raster.getSampleModelTranslateX() * 3;
+            }
+        }
+
+        /**
+         * @param image Tested image
+         * @return      True if rows of image can be read directly
+         */
+        static boolean isDirect(BufferedImage image) {
+            final DataBuffer buffer = image.getRaster().getDataBuffer();
+            final SampleModel model = image.getRaster().getSampleModel();
+
+            switch (image.getType()) {
+                case BufferedImage.TYPE_INT_RGB:
+                case BufferedImage.TYPE_INT_ARGB:
+                    return buffer instanceof DataBufferInt && model instanceof SinglePixelPackedSampleModel;
+
+                case BufferedImage.TYPE_3BYTE_BGR:
+                    return buffer instanceof DataBufferByte && model instanceof PixelInterleavedSampleModel;
+
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * @param y     Source row
+         * @param row   Output RGB values
+         */
+        void read(int y, int[] row) {
+            final int start = offset + y * stride;
+
+            if (ints != null) {
+                System.arraycopy(ints, start, row, 0, width);
+            } else {
+                for (int x = 0, index = start; x < width; ++x, index += 3)
+                    row[x] = (bytes[index + 2] & 0xFF) << 16 | (bytes[index + 1] & 0xFF) << 8 | (bytes[index] & 0xFF);
+            }
+        }
+
+        /**
+         * @param y         Source row
+         * @param columns   Source columns to be read
+         * @param output    Output RGB values
+         * @param offset    Offset of first value in output
+         */
+        void gather(int y, int[] columns, int[] output, int offset) {
+            final int start = this.offset + y * stride;
+
+            if (ints != null) {
+                for (int i = 0; i < columns.length; ++i)
+                    output[offset + i] = ints[start + columns[i]] & 0xFFFFFF;
+            } else {
+                for (int i = 0; i < columns.length; ++i) {
+                    final int index = start + columns[i] * 3;
+                    output[offset + i] = (bytes[index + 2] & 0xFF) << 16 | (bytes[index + 1] & 0xFF) << 8 | (bytes[index] & 0xFF);
+                }
+            }
+        }
+    }
+}
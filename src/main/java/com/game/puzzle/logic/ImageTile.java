@@ -1,31 +1,104 @@
 package com.game.puzzle.logic;
 
+import com.game.puzzle.metrics.Metrics;
+
 import javax.validation.constraints.NotNull;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Cuts image into parts
  */
 public class ImageTile {
+    /**
+     * Tiles storage mode
+     */
+    public enum Mode {
+        /** every tile is separate image with its own pixels */
+        COPY,
+
+        /** tiles are views of single scaled image, they hold only offsets */
+        SHARED
+    }
+
     private Image image;
-    private ArrayIterator<BufferedImage> tiles;
+    private Mode mode;
+    private ImageScaler.Policy policy;
+    private Dimension parts;
+
+    /** tiles row by row, index of tile is its number */
+    private BufferedImage[] tiles;
 
     public ImageTile(
             @NotNull Image image,
             @NotNull Dimension parts,
             Dimension scaledSize) throws Exception {
+        this(image, parts, scaledSize, Mode.SHARED);
+    }
+
+    public ImageTile(
+            @NotNull Image image,
+            @NotNull Dimension parts,
+            Dimension scaledSize,
+            @NotNull Mode mode) throws Exception {
+        this(image, parts, scaledSize, mode, ImageScaler.Policy.BALANCED);
+    }
+
+    public ImageTile(
+            @NotNull Image image,
+            @NotNull Dimension parts,
+            Dimension scaledSize,
+            @NotNull Mode mode,
+            @NotNull ImageScaler.Policy policy) throws Exception {
         this.image = image;
-        this.tiles = ImageTile.cutImageIntoParts(
-                image,
-                parts,
-                scaledSize
-        );
+        this.mode = mode;
+        this.policy = policy;
+        this.parts = new Dimension(parts);
+
+        final long start = Metrics.start();
+        this.tiles = mode == Mode.SHARED
+                ? ImageTile.shareImageParts(image, parts, scaledSize, policy)
+                : ImageTile.cutImageIntoParts(image, parts, scaledSize, policy);
+
+        if (start != 0) {
+            Metrics.tileCut(
+                    start,
+                    parts.width,
+                    parts.height,
+                    tiles[0].getWidth(),
+                    tiles[0].getHeight(),
+                    mode.name(),
+                    policy.name()
+            );
+        }
     }
 
     public Image getImage() { return image; }
 
-    public ArrayIterator<BufferedImage> getTiles() { return tiles; }
+    public Mode getMode() { return mode; }
+
+    public ImageScaler.Policy getPolicy() { return policy; }
+
+    /**
+     * @return  Count of tiles in row and column
+     */
+    public Dimension getParts() { return new Dimension(parts); }
+
+    public int getTileCount() { return tiles.length; }
+
+    /**
+     * @param index Tile index, row by row
+     * @return      Image of tile
+     */
+    public BufferedImage getTile(int index) { return tiles[index]; }
+
+    /**
+     * @param x Column
+     * @param y Row
+     * @return  Image of tile
+     */
+    public BufferedImage getTile(int x, int y) { return tiles[y * parts.width + x]; }
 
     /**
      * Tests dimensions object
@@ -37,69 +110,126 @@ public class ImageTile {
     }
 
     /**
-     * Cut provided image into parts and try to scale to provided size
+     * Scale source image once into TYPE_INT_RGB canvas, buffered
+     * images are scaled in parallel directly on their rasters
+     *
+     * @param image     Source image
+     * @param size      Size of canvas
+     * @param policy    Scaling policy
+     * @return          Canvas with scaled image
+     */
+    private static BufferedImage createCanvas(
+            @NotNull Image image,
+            @NotNull Dimension size,
+            @NotNull ImageScaler.Policy policy) {
+        if (image instanceof BufferedImage)
+            return ImageScaler.scale((BufferedImage) image, size, policy);
+
+        final BufferedImage canvas = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D ctx = canvas.createGraphics();
+        ctx.drawImage(image, 0, 0, size.width, size.height, null);
+        ctx.dispose();
+        return canvas;
+    }
+
+    /**
+     * @param parts     Total number of parts to be cutted
+     * @param canvas    Scaled image
+     * @return          Size of single tile
+     * @throws Exception Raises if image is too small
+     */
+    private static Dimension getCellSize(Dimension parts, BufferedImage canvas) throws Exception {
+        final Dimension cellSize = new Dimension(
+                canvas.getWidth() / parts.width,
+                canvas.getHeight() / parts.height
+        );
+
+        if (!ImageTile.isValidDimension(cellSize))
+            throw new Exception("Image is too small to be cut into " + parts.width + "x" + parts.height + " parts!");
+
+        return cellSize;
+    }
+
+    /**
+     * Scale image once and create tiles that share its raster,
+     * if image is not scaled source pixels are used directly
      *
      * @param image         Source image
      * @param parts         Total number of parts to be cutted
      * @param scaledSize    Size of total tile object
-     * @return              Array of tiles
+     * @param policy        Scaling policy
+     * @return              Tiles views row by row
      * @throws Exception    Raises if wrong size is provided
      */
-    private static ArrayIterator<BufferedImage> cutImageIntoParts(
+    private static BufferedImage[] shareImageParts(
             @NotNull Image image,
             @NotNull Dimension parts,
-            Dimension scaledSize) throws Exception {
+            Dimension scaledSize,
+            @NotNull ImageScaler.Policy policy) throws Exception {
         if (!ImageTile.isValidDimension(parts))
             throw new Exception("Tile has been created with wrong dimensions!");
 
-        /**
-         * If scaled size is null try to rescale to
-         * original image size
-         */
-        if (scaledSize == null)
-            scaledSize = new Dimension(image.getWidth(null), image.getHeight(null));
+        final boolean scaled = scaledSize != null
+                && (scaledSize.width != image.getWidth(null) || scaledSize.height != image.getHeight(null));
 
-        /**
-         * Size of cell from source, before scale
-         */
-        final Dimension SOURCE_CELL_SIZE = new Dimension(
-                image.getWidth(null) / parts.width,
-                image.getHeight(null) / parts.height
-        );
+        final BufferedImage canvas = !scaled && image instanceof BufferedImage
+                ? (BufferedImage) image
+                : ImageTile.createCanvas(
+                        image,
+                        scaled ? scaledSize : new Dimension(image.getWidth(null), image.getHeight(null)),
+                        policy
+                );
 
-        /**
-         * Single already scaled tiles cell, it has size
-         * calc from scaledSize property
-         */
-        final Dimension CELL_SIZE = new Dimension(
-                scaledSize.width /  parts.width,
-                scaledSize.height / parts.height
-        );
+        final Dimension CELL_SIZE = ImageTile.getCellSize(parts, canvas);
 
         /**
-         * Prevent cache misses - order page:
-         * - i is row / y axis
-         * - j is column / x axis
+         * getSubimage does not copy pixels, tile
+         * is only offset inside shared raster
          */
-        return new ArrayIterator<>(BufferedImage.class, parts).map((element, x, y) -> {
-            final BufferedImage img = new BufferedImage(
+        final BufferedImage[] cells = new BufferedImage[parts.width * parts.height];
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = canvas.getSubimage(
+                    CELL_SIZE.width * (i % parts.width),
+                    CELL_SIZE.height * (i / parts.width),
                     CELL_SIZE.width,
-                    CELL_SIZE.height,
-                    BufferedImage.TYPE_INT_RGB
-            );
-            final Graphics ctx = img.getGraphics();
-
-            ctx.drawImage(
-                    image,
-                    0, 0, CELL_SIZE.width, CELL_SIZE.height,
-                    SOURCE_CELL_SIZE.width * x,
-                    SOURCE_CELL_SIZE.height * y,
-                    (SOURCE_CELL_SIZE.width * x) + SOURCE_CELL_SIZE.width,
-                    (SOURCE_CELL_SIZE.height * y) + CELL_SIZE.height,
-                    null
+                    CELL_SIZE.height
             );
+        }
+        return cells;
+    }
 
-            return img;
-        });
+    /**
+     * Scale provided image once and copy rows of
+     * all tiles from scaled canvas in parallel
+     *
+     * @param image         Source image
+     * @param parts         Total number of parts to be cutted
+     * @param scaledSize    Size of total tile object
+     * @param policy        Scaling policy
+     * @return              Tiles row by row
+     * @throws Exception    Raises if wrong size is provided
+     */
+    private static BufferedImage[] cutImageIntoParts(
+            @NotNull Image image,
+            @NotNull Dimension parts,
+            Dimension scaledSize,
+            @NotNull ImageScaler.Policy policy) throws Exception {
+        if (!ImageTile.isValidDimension(parts))
+            throw new Exception("Tile has been created with wrong dimensions!");
+
+        /**
+         * If scaled size is null try to rescale to
+         * original image size
+         */
+        if (scaledSize == null)
+            scaledSize = new Dimension(image.getWidth(null), image.getHeight(null));
+
+        final BufferedImage canvas = ImageTile.createCanvas(image, scaledSize, policy);
+        return ImageScaler.split(
+                canvas,
+                parts,
+                ImageTile.getCellSize(parts, canvas),
+                ForkJoinPool.commonPool()
+        );
     }
 }
@@ -0,0 +1,288 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Two dimensional grid of ints stored in single flat array,
+ * row by row, so cell (x, y) has index y * width + x. Unlike
+ * ArrayIterator values are not boxed, cells are visited by
+ * index and lookups return index instead of new Point.
+ */
+public final class IntGrid {
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(int index, int value);
+    }
+
+    @FunctionalInterface
+    public interface CellOperator {
+        int apply(int index, int value);
+    }
+
+    private final int width;
+    private final int height;
+    private final int[] cells;
+
+    /**
+     * Create grid filled with zeros
+     *
+     * @param width     Count of columns
+     * @param height    Count of rows
+     */
+    public IntGrid(int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Grid has been created with wrong dimensions!");
+
+        this.width = width;
+        this.height = height;
+        this.cells = new int[width * height];
+    }
+
+    /**
+     * @param size  Size of grid
+     */
+    public IntGrid(@NotNull Dimension size) {
+        this(size.width, size.height);
+    }
+
+    /**
+     * @param values    Values row by row, they are copied
+     * @param size      Size of grid
+     * @return          Grid with provided values
+     */
+    public static IntGrid of(@NotNull int[] values, @NotNull Dimension size) {
+        final IntGrid grid = new IntGrid(size);
+        if (values.length != grid.cells.length)
+            throw new IllegalArgumentException("Values count does not match grid size!");
+
+        System.arraycopy(values, 0, grid.cells, 0, values.length);
+        return grid;
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public int getCellCount() { return cells.length; }
+
+    public Dimension getSize() { return new Dimension(width, height); }
+
+    /**
+     * @return  Backing array row by row, changes are visible in grid
+     */
+    public int[] array() { return cells; }
+
+    /**
+     * @param x Column
+     * @param y Row
+     * @return  Index of cell
+     */
+    public int index(int x, int y) { return y * width + x; }
+
+    /**
+     * @param index Index of cell
+     * @return      Column of cell
+     */
+    public int getX(int index) { return index % width; }
+
+    /**
+     * @param index Index of cell
+     * @return      Row of cell
+     */
+    public int getY(int index) { return index / width; }
+
+    /**
+     * @param x Column
+     * @param y Row
+     * @return  True if cell is inside grid
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    public int get(int index) { return cells[index]; }
+
+    public int get(int x, int y) { return cells[y * width + x]; }
+
+    public IntGrid set(int index, int value) {
+        cells[index] = value;
+        return this;
+    }
+
+    public IntGrid set(int x, int y, int value) {
+        cells[y * width + x] = value;
+        return this;
+    }
+
+    /**
+     * @param value Value of all cells
+     */
+    public IntGrid fill(int value) {
+        Arrays.fill(cells, value);
+        return this;
+    }
+
+    /**
+     * Store own index in every cell, e.g. ordered board
+     */
+    public IntGrid fillIndices() {
+        for (int i = 0; i < cells.length; ++i)
+            cells[i] = i;
+        return this;
+    }
+
+    /**
+     * @param source    Grid of the same size
+     */
+    public IntGrid copyFrom(@NotNull IntGrid source) {
+        checkSize(source.width, source.height);
+        System.arraycopy(source.cells, 0, cells, 0, cells.length);
+        return this;
+    }
+
+    /**
+     * @param state Board of the same size, tile numbers are copied
+     */
+    public IntGrid copyFrom(@NotNull BoardState state) {
+        checkSize(state.getWidth(), state.getHeight());
+        state.copyTo(cells);
+        return this;
+    }
+
+    /**
+     * @return  Independent copy of grid
+     */
+    public IntGrid copy() {
+        return new IntGrid(width, height).copyFrom(this);
+    }
+
+    /**
+     * @param other Grid of the same size
+     * @return      True if all cells are equal
+     */
+    public boolean contentEquals(@NotNull IntGrid other) {
+        return other.width == width && other.height == height && Arrays.equals(other.cells, cells);
+    }
+
+    /**
+     * @param other Grid of the same size
+     * @param from  Index of first compared cell
+     * @return      Index of first cell that differs, -1 if rest of grids is equal
+     */
+    public int mismatch(@NotNull IntGrid other, int from) {
+        checkSize(other.width, other.height);
+
+        final int found = Arrays.mismatch(cells, from, cells.length, other.cells, from, cells.length);
+        return found == -1 ? -1 : from + found;
+    }
+
+    /**
+     * @param value Searched value
+     * @return      Index of first cell with value, -1 if there is no such cell
+     */
+    public int indexOf(int value) {
+        return indexOf(value, 0);
+    }
+
+    /**
+     * @param value Searched value
+     * @param from  Index of first checked cell
+     * @return      Index of first cell with value, -1 if there is no such cell
+     */
+    public int indexOf(int value, int from) {
+        for (int i = from; i < cells.length; ++i)
+            if (cells[i] == value)
+                return i;
+
+        return -1;
+    }
+
+    /**
+     * @param a First cell index
+     * @param b Second cell index
+     */
+    public IntGrid swap(int a, int b) {
+        final int value = cells[a];
+        cells[a] = cells[b];
+        cells[b] = value;
+        return this;
+    }
+
+    /**
+     * Gather cells of source in provided order, target
+     * cell i gets value of source cell order[i]
+     *
+     * @param source    Grid of the same size, it must not be target
+     * @param order     Source index of every cell
+     */
+    public IntGrid permute(@NotNull IntGrid source, @NotNull IntGrid order) {
+        checkSize(source.width, source.height);
+        checkSize(order.width, order.height);
+
+        if (source == this)
+            throw new IllegalArgumentException("Grid cannot be permuted in place!");
+
+        for (int i = 0; i < cells.length; ++i)
+            cells[i] = source.cells[order.cells[i]];
+        return this;
+    }
+
+    /**
+     * Random shuffle grid
+     */
+    public IntGrid shuffle() {
+        return shuffle(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Fisher-Yates shuffle, every order has the same probability
+     *
+     * @param random    Random numbers generator
+     */
+    public IntGrid shuffle(@NotNull Random random) {
+        for (int i = cells.length - 1; i > 0; --i)
+            swap(i, random.nextInt(i + 1));
+        return this;
+    }
+
+    /**
+     * @param consumer  Function called with every cell, row by row
+     */
+    public void forEach(@NotNull CellConsumer consumer) {
+        for (int i = 0; i < cells.length; ++i)
+            consumer.accept(i, cells[i]);
+    }
+
+    /**
+     * @param operator  Function that returns new value of every cell
+     */
+    public IntGrid map(@NotNull CellOperator operator) {
+        for (int i = 0; i < cells.length; ++i)
+            cells[i] = operator.apply(i, cells[i]);
+        return this;
+    }
+
+    private void checkSize(int width, int height) {
+        if (width != this.width || height != this.height)
+            throw new IllegalArgumentException("Grid size does not match!");
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof IntGrid && contentEquals((IntGrid) obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * width + Arrays.hashCode(cells);
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + Arrays.toString(cells);
+    }
+}
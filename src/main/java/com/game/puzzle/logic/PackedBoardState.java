@@ -0,0 +1,107 @@
+package com.game.puzzle.logic;
+
+/**
+ * Board with up to 16 cells packed into single long,
+ * every cell takes 4 bits, first cell is stored in
+ * lowest bits
+ */
+public class PackedBoardState extends BoardState {
+    static final int MAX_CELLS = 16;
+
+    private static final int CELL_BITS = 4;
+    private static final long CELL_MASK = 0xFL;
+
+    private long packed;
+
+    PackedBoardState(int width, int height) {
+        super(width, height);
+        this.packed = PackedBoardState.orderedBoard(cells);
+    }
+
+    private PackedBoardState(PackedBoardState state) {
+        super(state.width, state.height);
+        this.packed = state.packed;
+        this.blank = state.blank;
+    }
+
+    /**
+     * @param cells Total cells count
+     * @return      Packed board in which every cell stores its own index
+     */
+    private static long orderedBoard(int cells) {
+        long board = 0;
+        for (int i = cells - 1; i >= 0; --i)
+            board |= (long) i << (i * CELL_BITS);
+        return board;
+    }
+
+    /**
+     * @return  Whole board as single value, it can be used as key
+     */
+    public long getPacked() { return packed; }
+
+    @Override
+    public int get(int index) {
+        return (int) (packed >>> (index * CELL_BITS)) & (int) CELL_MASK;
+    }
+
+    @Override
+    void set(int index, int tile) {
+        final int shift = index * CELL_BITS;
+        packed = (packed & ~(CELL_MASK << shift)) | ((long) tile << shift);
+    }
+
+    @Override
+    public PackedBoardState copy() {
+        return new PackedBoardState(this);
+    }
+
+    @Override
+    public void reset() {
+        packed = PackedBoardState.orderedBoard(cells);
+        blank = cells - 1;
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return packed == PackedBoardState.orderedBoard(cells);
+    }
+
+    @Override
+    public void moveBlank(int cell) {
+        final int shift = cell * CELL_BITS;
+        final long tile = (packed >>> shift) & CELL_MASK;
+
+        /** blank cell always stores cells - 1 value, swap it with tile */
+        packed ^= ((tile ^ (cells - 1)) << shift) | ((tile ^ (cells - 1)) << (blank * CELL_BITS));
+        blank = cell;
+    }
+
+    @Override
+    void shiftRow(int offsetX, int count) {
+        /** run with blank is continuous bits range, shift it as single value */
+        final int first = offsetX > 0 ? blank - count : blank;
+        final int bits = (count + 1) * CELL_BITS;
+        final long mask = (bits == Long.SIZE ? -1L : (1L << bits) - 1) << (first * CELL_BITS);
+        final long run = (packed & mask) & ~(CELL_MASK << (blank * CELL_BITS));
+
+        blank = offsetX > 0 ? first : blank + count;
+        packed = (packed & ~mask)
+                | (offsetX > 0 ? run << CELL_BITS : run >>> CELL_BITS)
+                | ((long) (cells - 1) << (blank * CELL_BITS));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PackedBoardState) {
+            final PackedBoardState other = (PackedBoardState) obj;
+            return other.packed == packed && other.width == width && other.height == height;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed * 0x9E3779B97F4A7C15L);
+    }
+}
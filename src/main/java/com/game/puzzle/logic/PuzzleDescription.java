@@ -1,24 +1,48 @@
 package com.game.puzzle.logic;
 
 import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
 import java.awt.Image;
 
 /**
- * Metadata about single puzzle, it
- * should not contain any mutations
- * on puzzle data, it should be done
- * via PuzzleGrid
+ * Lookup table from tile number to its image, it
+ * should not contain any mutations on puzzle
+ * data, it should be done via PuzzleGrid
  */
 public class PuzzleDescription {
-    private int number;
-    private Image image;
+    private final Image[] images;
 
-    public PuzzleDescription(int number, @NotNull Image image) {
-        this.number = number;
-        this.image = image;
+    /**
+     * @param tile  Tiles cut from image, tile number is its index row by row
+     */
+    public PuzzleDescription(@NotNull ImageTile tile) {
+        this.images = new Image[tile.getTileCount()];
+
+        for (int number = 0; number < images.length; ++number)
+            images[number] = tile.getTile(number);
+    }
+
+    /**
+     * @param tiles Tiles cut from image, tile number is its index row by row
+     */
+    public PuzzleDescription(@NotNull ArrayIterator<? extends Image> tiles) {
+        final Dimension size = tiles.getSize();
+        this.images = new Image[size.width * size.height];
+
+        tiles.map((item, x, y) -> {
+            images[y * size.width + x] = item;
+            return null;
+        });
     }
 
-    public Image getImage() { return image; }
+    /**
+     * @return  Total count of tiles, including blank
+     */
+    public int getCount() { return images.length; }
 
-    public int getNumber() { return number; }
+    /**
+     * @param number    Tile number
+     * @return          Image of tile
+     */
+    public Image getImage(int number) { return images[number]; }
 }
@@ -0,0 +1,174 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.util.SplittableRandom;
+
+/**
+ * Seedable generator of always solvable boards, the
+ * same seed always produces the same boards sequence.
+ * Generator is not thread safe, use split() for workers.
+ */
+public class PuzzleGenerator {
+    private static final PuzzleGrid.Direction[] DIRECTIONS = PuzzleGrid.Direction.values();
+
+    private final SplittableRandom random;
+
+    public PuzzleGenerator() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * @param seed  Seed of random numbers generator
+     */
+    public PuzzleGenerator(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private PuzzleGenerator(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * @return  Independent generator, it can be used by other thread
+     */
+    public PuzzleGenerator split() {
+        return new PuzzleGenerator(random.split());
+    }
+
+    /**
+     * @param size  Board size
+     * @return      New uniformly shuffled board
+     */
+    public BoardState shuffled(@NotNull Dimension size) {
+        final BoardState state = BoardState.create(size);
+        shuffle(state);
+        return state;
+    }
+
+    /**
+     * @param size  Board size
+     * @param depth Random walk length
+     * @return      New scrambled board
+     */
+    public BoardState scrambled(@NotNull Dimension size, int depth) {
+        final BoardState state = BoardState.create(size);
+        scramble(state, depth);
+        return state;
+    }
+
+    /**
+     * Fisher-Yates shuffle of tiles with blank placed in right
+     * bottom corner. Every swap flips permutation parity, odd
+     * permutations are fixed by swapping first two tiles so every
+     * solvable board has the same probability.
+     *
+     * @param state Shuffled board, previous order is dropped
+     */
+    public void shuffle(@NotNull BoardState state) {
+        state.reset();
+
+        final int tiles = state.getCellCount() - 1;
+        if (tiles < 2)
+            return;
+
+        boolean odd = false;
+        for (int i = tiles - 1; i > 0; --i) {
+            final int j = random.nextInt(i + 1);
+            if (j != i) {
+                state.swap(i, j);
+                odd = !odd;
+            }
+        }
+
+        if (odd)
+            state.swap(0, 1);
+    }
+
+    /**
+     * Random walk of blank that never reverts previous move,
+     * board stays solvable and its difficulty grows with depth
+     *
+     * @param state Scrambled board, walk starts from its current order
+     * @param depth Count of moves
+     */
+    public void scramble(@NotNull BoardState state, int depth) {
+        if (state.getCellCount() < 2)
+            return;
+
+        PuzzleGrid.Direction previous = null;
+        for (int i = 0; i < depth; ++i) {
+            final PuzzleGrid.Direction direction = nextDirection(state, previous);
+            state.move(direction);
+            previous = direction;
+        }
+    }
+
+    /**
+     * Random walk that avoids boards already visited, e.g. by previous
+     * scrambles sharing the same table. If every move leads to visited
+     * board walk falls back to plain random move.
+     *
+     * @param state     Scrambled board, walk starts from its current order
+     * @param depth     Count of moves
+     * @param visited   Zobrist keys of visited boards, new boards are added
+     */
+    public void scramble(@NotNull BoardState state, int depth, @NotNull TranspositionTable visited) {
+        if (state.getCellCount() < 2)
+            return;
+
+        final Zobrist zobrist = Zobrist.forState(state);
+        long hash = zobrist.hash(state);
+        visited.put(hash, 0);
+
+        PuzzleGrid.Direction previous = null;
+        for (int i = 0; i < depth; ++i) {
+            PuzzleGrid.Direction direction = null;
+            int options = 0;
+
+            for (PuzzleGrid.Direction candidate : DIRECTIONS) {
+                final int cell = state.getMovableCell(candidate);
+                if (cell == -1 || candidate.opposite() == previous)
+                    continue;
+
+                final long key = zobrist.move(hash, state.get(cell), state.getBlankTile(), cell, state.getBlank());
+                if (!visited.contains(key) && random.nextInt(++options) == 0)
+                    direction = candidate;
+            }
+
+            if (direction == null)
+                direction = nextDirection(state, previous);
+
+            final int cell = state.getMovableCell(direction);
+            hash = zobrist.move(hash, state.get(cell), state.getBlankTile(), cell, state.getBlank());
+            state.moveBlank(cell);
+
+            visited.put(hash, i + 1);
+            previous = direction;
+        }
+    }
+
+    /**
+     * Pick random possible move, it never reverts previous
+     * move unless it is the only possible move
+     *
+     * @param state     Board
+     * @param previous  Previous move, null if there is no such move
+     * @return          Direction in which tile can be moved
+     */
+    public PuzzleGrid.Direction nextDirection(@NotNull BoardState state, PuzzleGrid.Direction previous) {
+        PuzzleGrid.Direction direction = null;
+        int options = 0;
+
+        /** reservoir sampling, every allowed move has the same probability */
+        for (PuzzleGrid.Direction candidate : DIRECTIONS) {
+            if (candidate.opposite() != previous
+                    && state.getMovableCell(candidate) != -1
+                    && random.nextInt(++options) == 0)
+                direction = candidate;
+        }
+
+        /** dead end of single row board, revert is the only move */
+        return direction == null ? previous.opposite() : direction;
+    }
+}
@@ -1,9 +1,10 @@
 package com.game.puzzle.logic;
 
+import com.game.puzzle.metrics.Metrics;
+
 import javax.validation.constraints.NotNull;
 import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.util.EnumSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Metadata representation of whole puzzle grid,
@@ -19,130 +20,370 @@ public class PuzzleGrid {
         public final int offsetX;
         public final int offsetY;
 
+        private static final Direction[] VALUES = values();
+
         Direction(int offsetX, int offsetY) {
             this.offsetX = offsetX;
             this.offsetY = offsetY;
         }
+
+        /**
+         * @return  Direction that reverts move
+         */
+        public Direction opposite() {
+            return VALUES[ordinal() ^ 1];
+        }
     }
 
+    /**
+     * Listener of applied moves, e.g. journal of game
+     */
+    @FunctionalInterface
+    public interface MoveListener {
+        /**
+         * @param direction Direction in which tiles moved
+         * @param count     Count of moved tiles, every tile is single move
+         */
+        void moved(Direction direction, int count);
+    }
+
+    /** manhattan distances shared by all grids of the same size */
+    private static final ConcurrentHashMap<Dimension, ByteGrid> DISTANCES = new ConcurrentHashMap<>();
+
     private ImageTile tile;
-    private ArrayIterator<PuzzleDescription> puzzles;
+    private PuzzleDescription puzzles;
+    private BoardState state;
+    private Zobrist zobrist;
+
+    /** distance of tile placed in cell, column is cell and row is tile */
+    private ByteGrid distances;
+    private MoveListener moveListener = null;
+
+    /** metrics updated by every move, they are never recalculated while playing */
+    private int misplaced;
+    private int manhattan;
+    private boolean oddPermutation;
+    private long hash;
 
     /**
      * @param tile  Tile of images
      */
     public PuzzleGrid(@NotNull ImageTile tile) {
         this.tile = tile;
-        this.puzzles = PuzzleGrid.extractPuzzles(tile);
+        this.puzzles = new PuzzleDescription(tile);
+        this.state = BoardState.create(tile.getParts());
+        this.zobrist = Zobrist.forState(state);
+        this.distances = PuzzleGrid.getDistances(state.getSize());
+        recalculateMetrics();
     }
 
+    /**
+     * Create headless grid without images, it
+     * can be used without any display
+     *
+     * @param size  Size of board
+     */
+    public PuzzleGrid(@NotNull Dimension size) {
+        this.state = BoardState.create(size);
+        this.zobrist = Zobrist.forState(state);
+        this.distances = PuzzleGrid.getDistances(state.getSize());
+        recalculateMetrics();
+    }
+
+    /**
+     * @return  Tile of images, null if grid is headless
+     */
     public ImageTile getTile() { return tile; }
 
-    public ArrayIterator<PuzzleDescription> getPuzzles() { return puzzles; }
+    /**
+     * @return  Images of tiles, null if grid is headless
+     */
+    public PuzzleDescription getPuzzles() { return puzzles; }
+
+    /**
+     * @return  Current board, it should be mutated only via PuzzleGrid
+     */
+    public BoardState getState() { return state; }
+
+    public Dimension getSize() { return state.getSize(); }
+
+    /**
+     * Copy tiles without allocation, e.g. into grid
+     * compared with previously rendered tiles
+     *
+     * @param target    Grid of the same size as board
+     * @return          Target grid with tile number of every cell
+     */
+    public IntGrid copyTiles(@NotNull IntGrid target) {
+        return target.copyFrom(state);
+    }
+
+    /**
+     * Replace board, e.g. restored from journal or snapshot
+     *
+     * @param state Board of the same size as grid
+     */
+    public void setState(@NotNull BoardState state) {
+        if (state.getWidth() != this.state.getWidth() || state.getHeight() != this.state.getHeight())
+            throw new IllegalArgumentException("Board size does not match grid size!");
+
+        this.state = state.copy();
+        recalculateMetrics();
+    }
+
+    /**
+     * @param moveListener  Listener called after every slide, null removes listener
+     * @return              Grid
+     */
+    public PuzzleGrid setMoveListener(MoveListener moveListener) {
+        this.moveListener = moveListener;
+        return this;
+    }
+
+    /**
+     * @return  Count of tiles placed outside of their cells, blank is not counted
+     */
+    public int getMisplacedCount() { return misplaced; }
+
+    /**
+     * @return  Sum of manhattan distances of all tiles, blank is not counted
+     */
+    public int getManhattanDistance() { return manhattan; }
+
+    /**
+     * @return  Zobrist key of board, updated by every move
+     */
+    public long getHash() { return hash; }
 
     /**
-     * Find one not ordered, if null all slides are correct
+     * @return  True if permutation of all cells including blank is odd
+     */
+    public boolean isOddPermutation() { return oddPermutation; }
+
+    /**
+     * Every move flips permutation parity and blank distance
+     * parity at once, so board is solvable if both are equal
      *
+     * @return  True if board can be ordered
+     */
+    public boolean isSolvable() {
+        final int blank = state.getBlank();
+        final int width = state.getWidth();
+        final int blankDistance = (width - 1 - blank % width) + (state.getHeight() - 1 - blank / width);
+
+        return oddPermutation == ((blankDistance & 1) == 1);
+    }
+
+    /**
      * @return  True if all puzzles are ordered from min to max
      */
     public boolean isOrdered() {
-        final Point wrongPuzzle = puzzles.find(
-                (element, x, y) -> element != null && element.getNumber() != (y * this.puzzles.getSize().width) + x
-        );
-        return wrongPuzzle == null;
+        return misplaced == 0;
     }
 
     /**
-     * Reorder slides, be sure that null field is
-     * in the right bottom corner
+     * Reorder slides, blank is placed in the right
+     * bottom corner and board is always solvable
      */
     public void shuffle() {
-        puzzles.shuffle();
+        shuffle(new PuzzleGenerator());
+    }
 
-        /**
-         * at least one null slide have to
-         * be placed in right corner
-         */
-        Point nullSlide = puzzles.find(
-                (element, x, y) -> element == null
-        );
-        if (nullSlide != null) {
-            puzzles.array[nullSlide.y][nullSlide.x] = puzzles.array[puzzles.getSize().height - 1][puzzles.getSize().width -  1];
-            puzzles.array[puzzles.getSize().height - 1][puzzles.getSize().width -  1] = null;
-        }
+    /**
+     * @param generator Seedable generator of boards
+     */
+    public void shuffle(@NotNull PuzzleGenerator generator) {
+        generator.shuffle(state);
+        recalculateMetrics();
     }
 
     /**
-     * Slide puzzle, swap with first found null place
+     * Scramble ordered board by random walk of blank
+     *
+     * @param generator Seedable generator of boards
+     * @param depth     Count of random moves
+     */
+    public void scramble(@NotNull PuzzleGenerator generator, int depth) {
+        state.reset();
+        generator.scramble(state, depth);
+        recalculateMetrics();
+    }
+
+    /**
+     * Slide puzzle, if it is in the same row or column as
+     * blank all tiles between them are moved at once
      *
      * @param p Slide coordinate
      * @return  True if slide is success
      */
-    public boolean slide(Point p) throws ArrayIndexOutOfBoundsException {
-        if (p.x >= puzzles.getSize().width || p.y >= puzzles.getSize().height)
+    public boolean slide(@NotNull Point p) {
+        final int width = state.getWidth();
+        if (p.x < 0 || p.y < 0 || p.x >= width || p.y >= state.getHeight())
             return false;
 
-        /** if there is no free edges abort sliding */
-        final EnumSet<Direction> movableEdges = getMovableEdges(p);
-        if (movableEdges.isEmpty())
+        /** blank is tracked by state, there is no need to check every edge */
+        final int blankX = state.getBlank() % width;
+        final int blankY = state.getBlank() / width;
+
+        if (p.y == blankY && p.x != blankX)
+            return slide(p.x < blankX ? Direction.RIGHT : Direction.LEFT, Math.abs(blankX - p.x));
+
+        if (p.x == blankX && p.y != blankY)
+            return slide(p.y < blankY ? Direction.BOTTOM : Direction.TOP, Math.abs(blankY - p.y));
+
+        return false;
+    }
+
+    /**
+     * Move run of tiles placed next to blank
+     *
+     * @param direction Direction in which tiles move
+     * @param count     Count of moved tiles
+     * @return          True if all tiles have been moved
+     */
+    public boolean slide(@NotNull Direction direction, int count) {
+        final long start = Metrics.start();
+        final boolean moved = move(direction, count);
+
+        if (start != 0)
+            Metrics.slide(start, state.getWidth(), state.getHeight(), count, moved);
+        return moved;
+    }
+
+    /**
+     * @param direction Direction in which tiles move
+     * @param count     Count of moved tiles
+     * @return          True if all tiles have been moved
+     */
+    private boolean move(Direction direction, int count) {
+        final int blank = state.getBlank();
+        final int step = direction.offsetY * state.getWidth() + direction.offsetX;
+
+        if (count <= 0)
+            return count == 0;
+
+        final int x = blank % state.getWidth() - direction.offsetX * count;
+        final int y = blank / state.getWidth() - direction.offsetY * count;
+        if (x < 0 || y < 0 || x >= state.getWidth() || y >= state.getHeight())
             return false;
 
-        /** try to move first found edge, maybe there will be multiple move field in future */
-        final Direction direction = movableEdges
-                .iterator()
-                .next();
+        for (int i = 1; i <= count; ++i) {
+            final int cell = blank - step * i;
+            final int tile = state.get(cell);
 
-        /** swap is always null, do not create temp variable */
-        puzzles.array[p.y + direction.offsetY][p.x + direction.offsetX] = puzzles.array[p.y][p.x];
-        puzzles.array[p.y][p.x] = null;
+            updateMetrics(tile, cell, cell + step);
+            hash = zobrist.move(hash, tile, state.getBlankTile(), cell, cell + step);
+        }
+        if ((count & 1) == 1)
+            oddPermutation = !oddPermutation;
+
+        state.shift(direction, count);
+        if (moveListener != null)
+            moveListener.moved(direction, count);
         return true;
     }
 
     /**
-     * @param p Slide coordinate
-     * @return  True if edge can be moveable
-     */
-    private EnumSet<Direction> getMovableEdges(Point p) {
-        final Dimension boardSize = puzzles.getSize();
-        EnumSet<Direction> movableEdges = EnumSet.noneOf(Direction.class);
-
-        for (Direction dir : Direction.values()) {
-            if (dir.offsetX + p.x < boardSize.width
-                    && dir.offsetY + p.y < boardSize.height
-                    && dir.offsetX + p.x >= 0
-                    && dir.offsetY + p.y >= 0
-                    && puzzles.array[p.y + dir.offsetY][p.x + dir.offsetX] == null) {
-                movableEdges.add(dir);
-            }
+     * Apply moves, consecutive moves in the same
+     * direction are merged into single shift
+     *
+     * @param moves     Directions of moved tiles
+     * @param offset    Index of first applied move
+     * @param length    Count of applied moves
+     * @return          Count of applied moves, it stops on first impossible move
+     */
+    public int slide(@NotNull Direction[] moves, int offset, int length) {
+        int applied = 0;
+
+        while (applied < length) {
+            final Direction direction = moves[offset + applied];
+
+            int count = 1;
+            while (applied + count < length && moves[offset + applied + count] == direction)
+                ++count;
+
+            /** run may be longer than row, apply only possible part */
+            while (count > 0 && !slide(direction, count))
+                --count;
+
+            if (count == 0)
+                break;
+            applied += count;
         }
+        return applied;
+    }
 
-        return movableEdges;
+    /**
+     * @param moves Directions of moved tiles
+     * @return      Count of applied moves, it stops on first impossible move
+     */
+    public int slide(@NotNull Direction... moves) {
+        return slide(moves, 0, moves.length);
     }
 
     /**
-     * @param tile  Tile of images
+     * @param tile  Moved tile
+     * @param from  Previous cell of tile
+     * @param to    New cell of tile
      */
-    private static ArrayIterator<PuzzleDescription> extractPuzzles(@NotNull ImageTile tile) {
-        final ArrayIterator<BufferedImage> tiles = tile.getTiles();
-        final Dimension size = tiles.getSize();
-        final ArrayIterator<PuzzleDescription> puzzles = new ArrayIterator<>(PuzzleDescription.class, size);
-
-        tiles.map((item, x, y) -> {
-            /**
-             * Always one slide in puzzle game should be empty,
-             * mark it as null value and do not create PuzzleDescription object
-             */
-            final PuzzleDescription puzzle = x == size.width - 1 && y == size.height - 1
-                ? null
-                : new PuzzleDescription(
-                        y * size.width + x,
-                        item
-                );
-
-            puzzles.array[y][x] = puzzle;
-            return null;
+    private void updateMetrics(int tile, int from, int to) {
+        misplaced += (to == tile ? 0 : 1) - (from == tile ? 0 : 1);
+        manhattan += distance(tile, to) - distance(tile, from);
+    }
+
+    /**
+     * @param tile  Tile number, it is also index of its goal cell
+     * @param cell  Cell index
+     * @return      Manhattan distance of tile placed in cell
+     */
+    private int distance(int tile, int cell) {
+        return distances.get(cell, tile);
+    }
+
+    /**
+     * @param size  Size of board
+     * @return      Manhattan distance of every pair of tile and cell
+     */
+    private static ByteGrid getDistances(@NotNull Dimension size) {
+        return DISTANCES.computeIfAbsent(size, key -> {
+            final int cells = key.width * key.height;
+            return new ByteGrid(cells, cells).map((index, value) -> {
+                final int tile = index / cells;
+                final int cell = index % cells;
+
+                return Math.abs(tile % key.width - cell % key.width) + Math.abs(tile / key.width - cell / key.width);
+            });
         });
+    }
+
+    /**
+     * Calculate all metrics from scratch, it is
+     * called only when whole board changes
+     */
+    private void recalculateMetrics() {
+        final int cells = state.getCellCount();
+        final boolean[] visited = new boolean[cells];
+
+        misplaced = 0;
+        manhattan = 0;
+        int cycles = 0;
+
+        for (int cell = 0; cell < cells; ++cell) {
+            final int tile = state.get(cell);
+            if (tile != state.getBlankTile() && tile != cell) {
+                ++misplaced;
+                manhattan += distance(tile, cell);
+            }
+
+            /** parity of permutation is parity of cells count minus cycles count */
+            if (!visited[cell]) {
+                ++cycles;
+                for (int next = cell; !visited[next]; next = state.get(next))
+                    visited[next] = true;
+            }
+        }
 
-        return puzzles;
+        oddPermutation = ((cells - cycles) & 1) == 1;
+        hash = zobrist.hash(state);
     }
 }
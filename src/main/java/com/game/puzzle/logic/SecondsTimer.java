@@ -4,13 +4,16 @@ import javax.validation.constraints.NotNull;
 import java.util.concurrent.*;
 
 /**
- * Simple timer that ticks only one per second
+ * Monotonic game clock that notifies only once per second, all
+ * timers are served by one shared daemon scheduler thread so
+ * many concurrent games do not create thread per game
  */
 public class SecondsTimer {
     @FunctionalInterface
     public interface TimerHandler {
         /**
-         * Callback called after timer has been updated
+         * Callback called after timer has been updated, it is called
+         * on shared scheduler thread so it should return quickly
          *
          * @param seconds   Total seconds elapsed from timer start
          * @return If true stop the timer
@@ -18,33 +21,161 @@ public class SecondsTimer {
         boolean timerUpdated(long seconds);
     }
 
-    private long seconds = 0;
-    private ScheduledExecutorService executor = null;
-    private TimerHandler handler = null;
+    /**
+     * Lazy holder of scheduler shared by all timers
+     */
+    private static final class Scheduler {
+        static final ScheduledThreadPoolExecutor INSTANCE = Scheduler.create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                final Thread thread = new Thread(runnable, "seconds-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+
+    private final TimerHandler handler;
+
+    /** Guarded by this */
+    private long accumulatedNanos = 0;
+    private long startNanos = 0;
+    private boolean running = false;
+    private ScheduledFuture<?> tick = null;
+
+    /** Last seconds value passed to handler, repeated values are coalesced */
+    private volatile long notifiedSeconds = -1;
 
     public SecondsTimer(@NotNull TimerHandler handler) {
+        this(handler, 0);
+    }
+
+    /**
+     * @param handler       Callback called every second
+     * @param elapsedMillis Initial elapsed time, e.g. of restored game
+     */
+    public SecondsTimer(@NotNull TimerHandler handler, long elapsedMillis) {
         this.handler = handler;
-        this.executor = Executors.newScheduledThreadPool(1);
-        this.executor.scheduleAtFixedRate(
-                () -> handler.timerUpdated(++seconds),
-                0, 1,
-                TimeUnit.SECONDS
-        );
+        this.accumulatedNanos = TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+        resume();
+    }
+
+    /**
+     * @return  Elapsed time with millisecond precision, pauses are not counted
+     */
+    public synchronized long getElapsedMillis() {
+        final long elapsed = running
+                ? accumulatedNanos + System.nanoTime() - startNanos
+                : accumulatedNanos;
+
+        return TimeUnit.NANOSECONDS.toMillis(elapsed);
+    }
+
+    /**
+     * @return  Total whole seconds elapsed from timer start
+     */
+    public long getElapsedSeconds() {
+        return getElapsedMillis() / 1000;
+    }
+
+    public synchronized boolean isRunning() { return running; }
+
+    /**
+     * Start counting from elapsed time, does nothing if timer is running
+     */
+    public synchronized void resume() {
+        if (running)
+            return;
+
+        running = true;
+        startNanos = System.nanoTime();
+        schedule();
+    }
+
+    /**
+     * Stop counting without reset of elapsed time
+     */
+    public synchronized void pause() {
+        if (!running)
+            return;
+
+        accumulatedNanos += System.nanoTime() - startNanos;
+        running = false;
+        cancel();
     }
 
     /**
      * Sets remain seconds to 0
      */
     public void resetTimer() {
-        seconds = 0;
-        handler.timerUpdated(seconds);
+        synchronized (this) {
+            accumulatedNanos = 0;
+            startNanos = System.nanoTime();
+
+            if (running) {
+                cancel();
+                schedule();
+            }
+        }
+
+        notifyHandler(0);
     }
 
     /**
      * Stop timer and resets values
      */
     public void stop() {
-        executor.shutdown();
+        pause();
         resetTimer();
     }
+
+    /**
+     * Schedule next tick exactly at next whole second, so
+     * ticks do not drift even if scheduler is late
+     */
+    private void schedule() {
+        final long millis = getElapsedMillis();
+
+        tick = Scheduler.INSTANCE.schedule(
+                this::tick,
+                1000 - millis % 1000,
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    private void cancel() {
+        if (tick != null) {
+            tick.cancel(false);
+            tick = null;
+        }
+    }
+
+    private void tick() {
+        synchronized (this) {
+            if (!running)
+                return;
+
+            schedule();
+        }
+
+        /** handler is called outside of lock, it may pause or stop timer */
+        if (notifyHandler(getElapsedSeconds()))
+            pause();
+    }
+
+    /**
+     * @param seconds   Elapsed seconds
+     * @return          True if handler requested stop
+     */
+    private boolean notifyHandler(long seconds) {
+        if (seconds == notifiedSeconds && seconds != 0)
+            return false;
+
+        notifiedSeconds = seconds;
+        return handler.timerUpdated(seconds);
+    }
 }
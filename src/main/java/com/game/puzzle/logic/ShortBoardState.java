@@ -0,0 +1,83 @@
+package com.game.puzzle.logic;
+
+import java.util.Arrays;
+
+/**
+ * Board with up to 1024 cells (e.g. 32x32) stored in flat short
+ * array, row by row, values are treated as unsigned. Bigger boards
+ * are not created because Zobrist keys and distance tables of
+ * PuzzleGrid grow with square of cells count.
+ */
+public class ShortBoardState extends BoardState {
+    static final int MAX_CELLS = 1024;
+
+    private final short[] tiles;
+
+    ShortBoardState(int width, int height) {
+        super(width, height);
+        this.tiles = new short[cells];
+
+        for (int i = cells - 1; i >= 0; --i)
+            tiles[i] = (short) i;
+    }
+
+    private ShortBoardState(ShortBoardState state) {
+        super(state.width, state.height);
+        this.tiles = state.tiles.clone();
+        this.blank = state.blank;
+    }
+
+    @Override
+    public int get(int index) {
+        return tiles[index] & 0xFFFF;
+    }
+
+    @Override
+    void set(int index, int tile) {
+        tiles[index] = (short) tile;
+    }
+
+    @Override
+    public void copyTo(int[] tiles) {
+        for (int i = 0; i < cells; ++i)
+            tiles[i] = this.tiles[i] & 0xFFFF;
+    }
+
+    @Override
+    public ShortBoardState copy() {
+        return new ShortBoardState(this);
+    }
+
+    @Override
+    public void moveBlank(int cell) {
+        tiles[blank] = tiles[cell];
+        tiles[cell] = (short) (cells - 1);
+        blank = cell;
+    }
+
+    @Override
+    void shiftRow(int offsetX, int count) {
+        if (offsetX > 0) {
+            System.arraycopy(tiles, blank - count, tiles, blank - count + 1, count);
+            blank -= count;
+        } else {
+            System.arraycopy(tiles, blank + 1, tiles, blank, count);
+            blank += count;
+        }
+        tiles[blank] = (short) (cells - 1);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof ShortBoardState) {
+            final ShortBoardState other = (ShortBoardState) obj;
+            return other.width == width && other.height == height && Arrays.equals(other.tiles, tiles);
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(tiles);
+    }
+}
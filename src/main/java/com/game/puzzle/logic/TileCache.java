@@ -0,0 +1,295 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.SoftReference;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of cut images keyed by image identity, parts,
+ * scaled size, mode and scaling policy. Tiles over byte
+ * budget are kept only by soft references, GC may drop them
+ */
+public class TileCache {
+    /**
+     * Loads source image, called only on cache miss
+     */
+    @FunctionalInterface
+    public interface ImageLoader {
+        Image load() throws Exception;
+    }
+
+    /** Default byte budget of strongly referenced tiles */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, .75f, true);
+    private final HashMap<Key, SoftReference<ImageTile>> evicted = new HashMap<>();
+
+    private long maxBytes;
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder softHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TileCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes  Byte budget of strongly referenced tiles
+     */
+    public TileCache(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Cache budget cannot be negative!");
+
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param imageKey      Identity of image, e.g. resource name
+     * @param parts         Total number of parts to be cutted
+     * @param scaledSize    Size of total tile object, null if not scaled
+     * @param loader        Loader of source image called on miss
+     * @return              Cached or newly cut tile
+     * @throws Exception    Raises if image cannot be loaded or cut
+     */
+    public ImageTile get(
+            @NotNull String imageKey,
+            @NotNull Dimension parts,
+            Dimension scaledSize,
+            @NotNull ImageLoader loader) throws Exception {
+        return get(imageKey, parts, scaledSize, ImageTile.Mode.SHARED, ImageScaler.Policy.BALANCED, loader);
+    }
+
+    /**
+     * @param imageKey      Identity of image, e.g. resource name
+     * @param parts         Total number of parts to be cutted
+     * @param scaledSize    Size of total tile object, null if not scaled
+     * @param mode          Tiles storage mode
+     * @param policy        Scaling policy
+     * @param loader        Loader of source image called on miss
+     * @return              Cached or newly cut tile
+     * @throws Exception    Raises if image cannot be loaded or cut
+     */
+    public ImageTile get(
+            @NotNull String imageKey,
+            @NotNull Dimension parts,
+            Dimension scaledSize,
+            @NotNull ImageTile.Mode mode,
+            @NotNull ImageScaler.Policy policy,
+            @NotNull ImageLoader loader) throws Exception {
+        final Key key = new Key(imageKey, parts, scaledSize, mode, policy);
+
+        synchronized (this) {
+            final Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.tile;
+            }
+
+            final SoftReference<ImageTile> reference = evicted.remove(key);
+            final ImageTile softTile = reference == null ? null : reference.get();
+            if (softTile != null) {
+                softHits.increment();
+                put(key, softTile);
+                return softTile;
+            }
+        }
+
+        /** decoding and cutting is done outside of lock */
+        misses.increment();
+        final Image image = loader.load();
+        if (image == null)
+            throw new Exception("Image " + imageKey + " cannot be loaded!");
+
+        final ImageTile tile = new ImageTile(image, parts, scaledSize, mode, policy);
+        synchronized (this) {
+            final Entry concurrent = entries.get(key);
+            if (concurrent != null)
+                return concurrent.tile;
+
+            put(key, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * Insert tile and evict least recently used tiles over budget
+     *
+     * @param key   Key of tile
+     * @param tile  Cut image
+     */
+    private void put(Key key, ImageTile tile) {
+        final Entry entry = new Entry(tile, TileCache.getByteSize(tile));
+
+        entries.put(key, entry);
+        bytes += entry.bytes;
+        trim();
+    }
+
+    /**
+     * Move least recently used tiles to soft references until budget is met
+     */
+    private void trim() {
+        final Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+
+        while (bytes > maxBytes && iterator.hasNext()) {
+            final Map.Entry<Key, Entry> eldest = iterator.next();
+
+            iterator.remove();
+            bytes -= eldest.getValue().bytes;
+            evicted.put(eldest.getKey(), new SoftReference<>(eldest.getValue().tile));
+            evictions.increment();
+        }
+
+        /** drop references already cleared by GC */
+        evicted.values().removeIf(reference -> reference.get() == null);
+    }
+
+    /**
+     * @param maxBytes  New byte budget, tiles over budget are evicted
+     * @return          Cache
+     */
+    public synchronized TileCache setMaxBytes(long maxBytes) {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("Cache budget cannot be negative!");
+
+        this.maxBytes = maxBytes;
+        trim();
+        return this;
+    }
+
+    /**
+     * Remove all tiles, statistics are not reset
+     */
+    public synchronized void clear() {
+        entries.clear();
+        evicted.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getMaxBytes() { return maxBytes; }
+
+    /**
+     * @return  Bytes of strongly referenced tiles
+     */
+    public synchronized long getBytes() { return bytes; }
+
+    /**
+     * @return  Count of strongly referenced tiles
+     */
+    public synchronized int getSize() { return entries.size(); }
+
+    public long getHits() { return hits.sum(); }
+
+    /**
+     * @return  Count of hits of tiles restored from soft references
+     */
+    public long getSoftHits() { return softHits.sum(); }
+
+    public long getMisses() { return misses.sum(); }
+
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * @return  Ratio of hits to all lookups, 0 if cache was not used
+     */
+    public double getHitRatio() {
+        final long found = getHits() + getSoftHits();
+        final long total = found + getMisses();
+        return total == 0 ? 0 : (double) found / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "TileCache{size=%d, bytes=%d/%d, hits=%d, softHits=%d, misses=%d, evictions=%d}",
+                getSize(), getBytes(), getMaxBytes(), getHits(), getSoftHits(), getMisses(), getEvictions()
+        );
+    }
+
+    /**
+     * Sums sizes of distinct rasters held by tile, shared
+     * tiles and source image are counted only once
+     *
+     * @param tile  Cut image
+     * @return      Approximate size in bytes
+     */
+    static long getByteSize(@NotNull ImageTile tile) {
+        final Set<DataBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+        long size = 0;
+
+        if (tile.getImage() instanceof BufferedImage) {
+            buffers.add(((BufferedImage) tile.getImage()).getRaster().getDataBuffer());
+        } else {
+            size += 4L * tile.getImage().getWidth(null) * tile.getImage().getHeight(null);
+        }
+
+        for (int i = tile.getTileCount() - 1; i >= 0; --i)
+            if (tile.getTile(i) != null)
+                buffers.add(tile.getTile(i).getRaster().getDataBuffer());
+
+        for (DataBuffer buffer : buffers)
+            size += (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+
+        return size;
+    }
+
+    private static final class Entry {
+        final ImageTile tile;
+        final long bytes;
+
+        Entry(ImageTile tile, long bytes) {
+            this.tile = tile;
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class Key {
+        private final String image;
+        private final int partsWidth;
+        private final int partsHeight;
+        private final int scaledWidth;
+        private final int scaledHeight;
+        private final ImageTile.Mode mode;
+        private final ImageScaler.Policy policy;
+
+        Key(String image, Dimension parts, Dimension scaledSize, ImageTile.Mode mode, ImageScaler.Policy policy) {
+            this.image = image;
+            this.partsWidth = parts.width;
+            this.partsHeight = parts.height;
+            this.scaledWidth = scaledSize == null ? -1 : scaledSize.width;
+            this.scaledHeight = scaledSize == null ? -1 : scaledSize.height;
+            this.mode = mode;
+            this.policy = policy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+
+            if (!(o instanceof Key))
+                return false;
+
+            final Key key = (Key) o;
+            return partsWidth == key.partsWidth
+                    && partsHeight == key.partsHeight
+                    && scaledWidth == key.scaledWidth
+                    && scaledHeight == key.scaledHeight
+                    && mode == key.mode
+                    && policy == key.policy
+                    && image.equals(key.image);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(image, partsWidth, partsHeight, scaledWidth, scaledHeight, mode, policy);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.game.puzzle.logic;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Open addressed table keyed by long, e.g. Zobrist key of board.
+ * Entries are stored off heap in direct buffer with fixed budget,
+ * there is no boxing and no allocation after construction.
+ *
+ * Table is divided into buckets of 4 entries, single bucket fits
+ * into cache line. Entry holds key, int value, depth and generation.
+ * If bucket is full the entry of older generation and then with
+ * lowest depth is replaced, so deep results survive longer.
+ * Table is not thread safe, use one table per thread or lock it.
+ */
+public class TranspositionTable {
+    public static final int ENTRY_SIZE = 16;
+    public static final int BUCKET_ENTRIES = 4;
+    public static final int BUCKET_SIZE = ENTRY_SIZE * BUCKET_ENTRIES;
+
+    private static final int VALUE_OFFSET = 8;
+    private static final int DEPTH_OFFSET = 12;
+    private static final int GENERATION_OFFSET = 14;
+    private static final int MAX_DEPTH = Short.MAX_VALUE - 1;
+
+    private final ByteBuffer entries;
+    private final int bucketsMask;
+
+    private short generation = 1;
+    private long size = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long replacements = 0;
+
+    /**
+     * @param budget    Maximum size in bytes, rounded down to power of two buckets
+     */
+    public TranspositionTable(long budget) {
+        if (budget < BUCKET_SIZE)
+            throw new IllegalArgumentException("Transposition table budget is too small!");
+
+        final long buckets = Long.highestOneBit(Math.min(budget, 1L << 30) / BUCKET_SIZE);
+
+        this.entries = ByteBuffer.allocateDirect((int) (buckets * BUCKET_SIZE)).order(ByteOrder.nativeOrder());
+        this.bucketsMask = (int) buckets - 1;
+    }
+
+    /**
+     * @return  Count of entries that table can hold
+     */
+    public long getCapacity() { return (long) (bucketsMask + 1) * BUCKET_ENTRIES; }
+
+    /**
+     * @return  Count of stored entries
+     */
+    public long getSize() { return size; }
+
+    public long getHits() { return hits; }
+
+    public long getMisses() { return misses; }
+
+    /**
+     * @return  Count of entries overwritten by other keys
+     */
+    public long getReplacements() { return replacements; }
+
+    /**
+     * @return  Generation of entries stored now, between 1 and Short.MAX_VALUE
+     */
+    public int getGeneration() { return generation; }
+
+    /**
+     * @param key   Key
+     * @return      Offset of first entry of bucket
+     */
+    private int bucket(long key) {
+        /** keys are random, high bits are mixed to spread other keys */
+        return (int) ((key ^ key >>> 32) & bucketsMask) * BUCKET_SIZE;
+    }
+
+    /**
+     * @param key   Key
+     * @return      Offset of entry with key, -1 if there is no such entry
+     */
+    private int find(long key) {
+        final int bucket = bucket(key);
+
+        for (int i = 0; i < BUCKET_ENTRIES; ++i) {
+            final int entry = bucket + i * ENTRY_SIZE;
+            if (entries.getShort(entry + DEPTH_OFFSET) != 0 && entries.getLong(entry) == key)
+                return entry;
+        }
+        return -1;
+    }
+
+    /**
+     * @param key   Key
+     * @return      True if table contains key
+     */
+    public boolean contains(long key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * @param key       Key
+     * @param missing   Value returned if there is no such key
+     * @return          Stored value
+     */
+    public int get(long key, int missing) {
+        final int entry = find(key);
+        if (entry == -1) {
+            ++misses;
+            return missing;
+        }
+
+        ++hits;
+        entries.putShort(entry + GENERATION_OFFSET, generation);
+        return entries.getInt(entry + VALUE_OFFSET);
+    }
+
+    /**
+     * @param key   Key
+     * @return      Depth stored with key, -1 if there is no such key
+     */
+    public int getDepth(long key) {
+        final int entry = find(key);
+        return entry == -1 ? -1 : entries.getShort(entry + DEPTH_OFFSET) - 1;
+    }
+
+    /**
+     * @param key   Key
+     * @param value Value
+     * @return      True if value has been stored
+     */
+    public boolean put(long key, int value) {
+        return put(key, value, 0);
+    }
+
+    /**
+     * Store value, existing entry of the same key is overwritten
+     * only by result of at least the same depth
+     *
+     * @param key   Key
+     * @param value Value
+     * @param depth Depth of result, deeper results are replaced last
+     * @return      True if value has been stored
+     */
+    public boolean put(long key, int value, int depth) {
+        final short stored = (short) (Math.max(0, Math.min(depth, MAX_DEPTH)) + 1);
+        final int bucket = bucket(key);
+
+        int victim = -1;
+        long victimScore = Long.MAX_VALUE;
+
+        for (int i = 0; i < BUCKET_ENTRIES; ++i) {
+            final int entry = bucket + i * ENTRY_SIZE;
+            final short entryDepth = entries.getShort(entry + DEPTH_OFFSET);
+
+            if (entryDepth == 0) {
+                if (victim == -1 || victimScore != Long.MIN_VALUE) {
+                    victim = entry;
+                    victimScore = Long.MIN_VALUE;
+                }
+                continue;
+            }
+
+            if (entries.getLong(entry) == key) {
+                if (entryDepth > stored && entries.getShort(entry + GENERATION_OFFSET) == generation)
+                    return false;
+
+                write(entry, key, value, stored);
+                return true;
+            }
+
+            /** entries of older generations first, then shallow entries */
+            final boolean current = entries.getShort(entry + GENERATION_OFFSET) == generation;
+            final long score = (current ? 1L << 16 : 0) + entryDepth;
+            if (victimScore != Long.MIN_VALUE && score < victimScore) {
+                victim = entry;
+                victimScore = score;
+            }
+        }
+
+        if (victimScore == Long.MIN_VALUE)
+            ++size;
+        else
+            ++replacements;
+
+        write(victim, key, value, stored);
+        return true;
+    }
+
+    private void write(int entry, long key, int value, short depth) {
+        entries.putLong(entry, key)
+                .putInt(entry + VALUE_OFFSET, value)
+                .putShort(entry + DEPTH_OFFSET, depth)
+                .putShort(entry + GENERATION_OFFSET, generation);
+    }
+
+    /**
+     * Mark all entries as older, e.g. before new search,
+     * they are kept but replaced before current entries.
+     * Table is cleared when generation wraps around, so
+     * entries of old generation never look like current.
+     */
+    public void nextGeneration() {
+        if (generation == Short.MAX_VALUE) {
+            clear();
+            generation = 1;
+        } else {
+            ++generation;
+        }
+    }
+
+    /**
+     * Remove all entries, statistics are kept
+     */
+    public void clear() {
+        for (int i = 0; i < entries.capacity(); i += 8)
+            entries.putLong(i, 0);
+
+        size = 0;
+    }
+}
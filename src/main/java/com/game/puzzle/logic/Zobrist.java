@@ -0,0 +1,90 @@
+package com.game.puzzle.logic;
+
+import javax.validation.constraints.NotNull;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zobrist keys of boards. Every pair of tile and cell, blank
+ * included, has random 64 bit key and board key is XOR of keys
+ * of all its pairs, so single move updates key by four XORs.
+ * Keys are generated from fixed seed, the same board has the
+ * same key in every run.
+ */
+public class Zobrist {
+    private static final long SEED = 0x5DEECE66DL;
+    private static final ConcurrentHashMap<Integer, Zobrist> TABLES = new ConcurrentHashMap<>();
+
+    private final int cells;
+
+    /** key of tile placed in cell, indexed by tile * cells + cell */
+    private final long[] keys;
+
+    /**
+     * @param cells Count of board cells
+     */
+    private Zobrist(int cells) {
+        final SplittableRandom random = new SplittableRandom(SEED + cells);
+
+        this.cells = cells;
+        this.keys = new long[cells * cells];
+        for (int i = 0; i < keys.length; ++i)
+            keys[i] = random.nextLong();
+    }
+
+    /**
+     * @param cells Count of board cells
+     * @return      Keys shared by all boards with provided cells count
+     */
+    public static Zobrist forCells(int cells) {
+        return TABLES.computeIfAbsent(cells, Zobrist::new);
+    }
+
+    /**
+     * @param state Board
+     * @return      Keys shared by all boards of the same size
+     */
+    public static Zobrist forState(@NotNull BoardState state) {
+        return Zobrist.forCells(state.getCellCount());
+    }
+
+    /**
+     * @param tile  Tile number
+     * @param cell  Cell index
+     * @return      Key of tile placed in cell
+     */
+    public long get(int tile, int cell) {
+        return keys[tile * cells + cell];
+    }
+
+    /**
+     * @param state Board
+     * @return      Key of whole board
+     */
+    public long hash(@NotNull BoardState state) {
+        long hash = 0;
+        for (int cell = 0; cell < cells; ++cell)
+            hash ^= keys[state.get(cell) * cells + cell];
+
+        return hash;
+    }
+
+    /**
+     * Key after tile has been moved into blank
+     *
+     * @param hash  Key before move
+     * @param tile  Moved tile
+     * @param blank Blank tile number
+     * @param from  Previous cell of tile, new cell of blank
+     * @param to    New cell of tile, previous cell of blank
+     * @return      Key after move
+     */
+    public long move(long hash, int tile, int blank, int from, int to) {
+        final int tileRow = tile * cells;
+        final int blankRow = blank * cells;
+
+        return hash
+                ^ keys[tileRow + from] ^ keys[tileRow + to]
+                ^ keys[blankRow + to] ^ keys[blankRow + from];
+    }
+}
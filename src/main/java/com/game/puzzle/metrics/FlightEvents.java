@@ -0,0 +1,191 @@
+package com.game.puzzle.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder events of game, this class is the only one
+ * that references jdk.jfr and it is loaded by Metrics only if
+ * module exists. Duration is measured by caller before event
+ * is created, so it is stored in elapsed field and event is
+ * committed only when recording is running.
+ */
+final class FlightEvents {
+    private static final String CATEGORY = "Puzzle";
+
+    private FlightEvents() {}
+
+    @Name("com.game.puzzle.Slide")
+    @Label("Slide")
+    @Category({ CATEGORY, "Game" })
+    @Description("Move of tiles into blank")
+    @StackTrace(false)
+    static final class SlideEvent extends Event {
+        @Label("Elapsed") @Timespan(Timespan.NANOSECONDS) long elapsed;
+        @Label("Board Width") int width;
+        @Label("Board Height") int height;
+        @Label("Tiles Count") int count;
+        @Label("Moved") boolean moved;
+    }
+
+    @Name("com.game.puzzle.RenderFrame")
+    @Label("Render Frame")
+    @Category({ CATEGORY, "Render" })
+    @Description("Redraw of changed cells into cached frame")
+    @StackTrace(false)
+    static final class RenderFrameEvent extends Event {
+        @Label("Elapsed") @Timespan(Timespan.NANOSECONDS) long elapsed;
+        @Label("Frame Width") int width;
+        @Label("Frame Height") int height;
+        @Label("Redrawn Cells") int cells;
+    }
+
+    @Name("com.game.puzzle.TileCut")
+    @Label("Tile Cut")
+    @Category({ CATEGORY, "Image" })
+    @Description("Scale and cut of image into tiles")
+    static final class TileCutEvent extends Event {
+        @Label("Elapsed") @Timespan(Timespan.NANOSECONDS) long elapsed;
+        @Label("Columns") int columns;
+        @Label("Rows") int rows;
+        @Label("Tile Width") int width;
+        @Label("Tile Height") int height;
+        @Label("Mode") String mode;
+        @Label("Policy") String policy;
+    }
+
+    @Name("com.game.puzzle.ImageDecode")
+    @Label("Image Decode")
+    @Category({ CATEGORY, "Image" })
+    @Description("Decode of image or its region")
+    static final class ImageDecodeEvent extends Event {
+        @Label("Elapsed") @Timespan(Timespan.NANOSECONDS) long elapsed;
+        @Label("Source") String source;
+        @Label("Source Width") int sourceWidth;
+        @Label("Source Height") int sourceHeight;
+        @Label("Width") int width;
+        @Label("Height") int height;
+        @Label("Pixels Size") @DataAmount long bytes;
+    }
+
+    @Name("com.game.puzzle.SolverSearch")
+    @Label("Solver Search")
+    @Category({ CATEGORY, "Solver" })
+    @Description("Search of optimal solution")
+    static final class SolverSearchEvent extends Event {
+        @Label("Elapsed") @Timespan(Timespan.NANOSECONDS) long elapsed;
+        @Label("Board Width") int width;
+        @Label("Board Height") int height;
+        @Label("Solution Length") int length;
+        @Label("Expanded Nodes") long nodes;
+        @Label("Parallel") boolean parallel;
+    }
+
+    /**
+     * Track state of recordings, events are created only while
+     * any recording is running. Listener does not start recorder.
+     */
+    static void listen() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                FlightEvents.update(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                FlightEvents.update(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    /**
+     * @param recorder  Initialized recorder
+     */
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording recording : recorder.getRecordings())
+            running |= recording.getState() == RecordingState.RUNNING;
+
+        Metrics.setRecording(running);
+    }
+
+    static void slide(long elapsed, int width, int height, int count, boolean moved) {
+        final SlideEvent event = new SlideEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.elapsed = elapsed;
+        event.width = width;
+        event.height = height;
+        event.count = count;
+        event.moved = moved;
+        event.commit();
+    }
+
+    static void renderFrame(long elapsed, int width, int height, int cells) {
+        final RenderFrameEvent event = new RenderFrameEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.elapsed = elapsed;
+        event.width = width;
+        event.height = height;
+        event.cells = cells;
+        event.commit();
+    }
+
+    static void tileCut(long elapsed, int columns, int rows, int width, int height, String mode, String policy) {
+        final TileCutEvent event = new TileCutEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.elapsed = elapsed;
+        event.columns = columns;
+        event.rows = rows;
+        event.width = width;
+        event.height = height;
+        event.mode = mode;
+        event.policy = policy;
+        event.commit();
+    }
+
+    static void imageDecode(long elapsed, String source, int sourceWidth, int sourceHeight, int width, int height) {
+        final ImageDecodeEvent event = new ImageDecodeEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.elapsed = elapsed;
+        event.source = source;
+        event.sourceWidth = sourceWidth;
+        event.sourceHeight = sourceHeight;
+        event.width = width;
+        event.height = height;
+        event.bytes = 4L * width * height;
+        event.commit();
+    }
+
+    static void solverSearch(long elapsed, int width, int height, int length, long nodes, boolean parallel) {
+        final SolverSearchEvent event = new SolverSearchEvent();
+        if (!event.isEnabled())
+            return;
+
+        event.elapsed = elapsed;
+        event.width = width;
+        event.height = height;
+        event.length = length;
+        event.nodes = nodes;
+        event.parallel = parallel;
+        event.commit();
+    }
+}
@@ -0,0 +1,113 @@
+package com.game.puzzle.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations with power of two buckets,
+ * bucket i counts durations in range [2^i, 2^(i+1)) nanoseconds.
+ * Record is few atomic adds, percentiles are approximated
+ * by upper bound of bucket so they are at most 2x too high.
+ */
+public class LatencyHistogram {
+    static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param nanos Duration of operation
+     * @param items Count of processed items, e.g. moved tiles
+     */
+    public void record(long nanos, long items) {
+        final long duration = Math.max(0, nanos);
+
+        buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(duration | 1));
+        count.increment();
+        this.items.add(items);
+        totalNanos.add(duration);
+
+        if (duration > maxNanos.get())
+            maxNanos.accumulateAndGet(duration, Math::max);
+    }
+
+    public long getCount() { return count.sum(); }
+
+    public long getItems() { return items.sum(); }
+
+    public long getTotalNanos() { return totalNanos.sum(); }
+
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    /**
+     * @param percentile    Percentile between 0-100
+     * @return              Upper bound of bucket that contains percentile, 0 if empty
+     */
+    public long getPercentile(double percentile) {
+        final long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; ++i)
+            total += counts[i] = buckets.get(i);
+
+        if (total == 0)
+            return 0;
+
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; ++i) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(i == 62 ? Long.MAX_VALUE : (2L << i) - 1, getMaxNanos());
+        }
+        return getMaxNanos();
+    }
+
+    /**
+     * @return  Counts of all buckets
+     */
+    public long[] getBuckets() {
+        final long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; ++i)
+            counts[i] = buckets.get(i);
+        return counts;
+    }
+
+    /**
+     * @return  Immutable summary of histogram
+     */
+    public LatencySnapshot snapshot() {
+        return new LatencySnapshot(
+                getCount(),
+                getItems(),
+                getTotalNanos(),
+                getMaxNanos(),
+                getPercentile(50),
+                getPercentile(90),
+                getPercentile(99),
+                getBuckets()
+        );
+    }
+
+    /**
+     * Clear all counters, records made during
+     * reset may be partially kept
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; ++i)
+            buckets.set(i, 0);
+
+        count.reset();
+        items.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,70 @@
+package com.game.puzzle.metrics;
+
+/**
+ * Immutable summary of latency histogram, exposed
+ * by JMX as composite data with one item per getter
+ */
+public class LatencySnapshot {
+    private final long count;
+    private final long items;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long[] buckets;
+
+    LatencySnapshot(
+            long count,
+            long items,
+            long totalNanos,
+            long maxNanos,
+            long p50Nanos,
+            long p90Nanos,
+            long p99Nanos,
+            long[] buckets) {
+        this.count = count;
+        this.items = items;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.buckets = buckets;
+    }
+
+    /**
+     * @return  Count of recorded operations
+     */
+    public long getCount() { return count; }
+
+    /**
+     * @return  Count of processed items, e.g. moved tiles or decoded pixels
+     */
+    public long getItems() { return items; }
+
+    public long getTotalNanos() { return totalNanos; }
+
+    public long getMeanNanos() { return count == 0 ? 0 : totalNanos / count; }
+
+    public long getMaxNanos() { return maxNanos; }
+
+    public long getP50Nanos() { return p50Nanos; }
+
+    public long getP90Nanos() { return p90Nanos; }
+
+    public long getP99Nanos() { return p99Nanos; }
+
+    /**
+     * @return  Counts of durations, bucket i holds range [2^i, 2^(i+1)) nanoseconds
+     */
+    public long[] getBuckets() { return buckets.clone(); }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "count=%d items=%d mean=%.3fus p50=%.3fus p90=%.3fus p99=%.3fus max=%.3fus",
+                count, items, getMeanNanos() / 1e3, p50Nanos / 1e3, p90Nanos / 1e3, p99Nanos / 1e3, maxNanos / 1e3
+        );
+    }
+}
@@ -0,0 +1,240 @@
+package com.game.puzzle.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.validation.constraints.NotNull;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Instrumentation of game, render and solver hot paths. Every
+ * operation is timed only if histograms are enabled or flight
+ * recording is running, otherwise start() is single volatile
+ * read and operation is not timed at all:
+ *
+ *   final long start = Metrics.start();
+ *   ...
+ *   if (start != 0)
+ *       Metrics.slide(start, width, height, count, moved);
+ *
+ * Histograms are enabled by -Dpuzzle.metrics=true or by JMX.
+ * Flight recorder classes are loaded only if jdk.jfr module
+ * exists, so application still runs on JRE without it.
+ */
+public final class Metrics {
+    /**
+     * Instrumented operations
+     */
+    public enum Operation {
+        SLIDE,
+        RENDER_FRAME,
+        TILE_CUT,
+        IMAGE_DECODE,
+        SOLVER_SEARCH
+    }
+
+    public static final String OBJECT_NAME = "com.game.puzzle:type=Metrics";
+
+    private static final boolean FLIGHT_RECORDER = Metrics.isFlightRecorderAvailable();
+
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Operation.values().length];
+
+    private static volatile boolean enabled = Boolean.getBoolean("puzzle.metrics");
+    private static volatile boolean recording = false;
+
+    /** enabled or recording, it is the only field read by disabled metrics */
+    private static volatile boolean active = enabled;
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; ++i)
+            HISTOGRAMS[i] = new LatencyHistogram();
+
+        if (FLIGHT_RECORDER) {
+            try {
+                FlightEvents.listen();
+            } catch (Throwable e) {
+                /** recorder may be disabled by security manager, histograms still work */
+            }
+        }
+    }
+
+    private Metrics() {}
+
+    /**
+     * @return  True if jdk.jfr module is present and not disabled by -Dpuzzle.metrics.jfr=false
+     */
+    private static boolean isFlightRecorderAvailable() {
+        return !"false".equals(System.getProperty("puzzle.metrics.jfr"))
+                && ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+    }
+
+    /**
+     * @return  Start of operation, 0 if metrics are not active
+     */
+    public static long start() {
+        return active ? System.nanoTime() : 0;
+    }
+
+    public static boolean isActive() { return active; }
+
+    public static boolean isEnabled() { return enabled; }
+
+    public static boolean isRecording() { return recording; }
+
+    /**
+     * @param enabled   Enable recording of histograms
+     */
+    public static synchronized void setEnabled(boolean enabled) {
+        Metrics.enabled = enabled;
+        Metrics.active = enabled || recording;
+    }
+
+    /**
+     * @param recording True if flight recording is running
+     */
+    static synchronized void setRecording(boolean recording) {
+        Metrics.recording = recording;
+        Metrics.active = enabled || recording;
+    }
+
+    /**
+     * @param operation Instrumented operation
+     * @return          Histogram of operation durations
+     */
+    public static LatencyHistogram getHistogram(@NotNull Operation operation) {
+        return HISTOGRAMS[operation.ordinal()];
+    }
+
+    /**
+     * Clear all histograms
+     */
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS)
+            histogram.reset();
+    }
+
+    /**
+     * Register MBean in platform server, registering twice does nothing
+     */
+    public static synchronized void register() {
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name))
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsBean(), name);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param operation Instrumented operation
+     * @param start     Value returned by start()
+     * @param items     Count of processed items
+     * @return          Duration of operation
+     */
+    private static long record(Operation operation, long start, long items) {
+        final long nanos = System.nanoTime() - start;
+        if (enabled)
+            HISTOGRAMS[operation.ordinal()].record(nanos, items);
+        return nanos;
+    }
+
+    /**
+     * @param start     Value returned by start()
+     * @param width     Board width
+     * @param height    Board height
+     * @param count     Count of tiles requested to move
+     * @param moved     True if tiles have been moved
+     */
+    public static void slide(long start, int width, int height, int count, boolean moved) {
+        final long nanos = Metrics.record(Operation.SLIDE, start, moved ? count : 0);
+        if (recording)
+            FlightEvents.slide(nanos, width, height, count, moved);
+    }
+
+    /**
+     * @param start     Value returned by start()
+     * @param width     Frame width
+     * @param height    Frame height
+     * @param cells     Count of redrawn cells
+     */
+    public static void renderFrame(long start, int width, int height, int cells) {
+        final long nanos = Metrics.record(Operation.RENDER_FRAME, start, cells);
+        if (recording)
+            FlightEvents.renderFrame(nanos, width, height, cells);
+    }
+
+    /**
+     * @param start     Value returned by start()
+     * @param columns   Count of tiles in row
+     * @param rows      Count of tiles in column
+     * @param width     Width of single tile
+     * @param height    Height of single tile
+     * @param mode      Storage mode of tiles
+     * @param policy    Scaling policy
+     */
+    public static void tileCut(long start, int columns, int rows, int width, int height, String mode, String policy) {
+        final long nanos = Metrics.record(Operation.TILE_CUT, start, (long) columns * rows);
+        if (recording)
+            FlightEvents.tileCut(nanos, columns, rows, width, height, mode, policy);
+    }
+
+    /**
+     * @param start         Value returned by start()
+     * @param source        Image location
+     * @param sourceWidth   Width of decoded source region
+     * @param sourceHeight  Height of decoded source region
+     * @param width         Width of decoded image
+     * @param height        Height of decoded image
+     */
+    public static void imageDecode(long start, String source, int sourceWidth, int sourceHeight, int width, int height) {
+        final long nanos = Metrics.record(Operation.IMAGE_DECODE, start, (long) width * height);
+        if (recording)
+            FlightEvents.imageDecode(nanos, source, sourceWidth, sourceHeight, width, height);
+    }
+
+    /**
+     * @param start     Value returned by start()
+     * @param width     Board width
+     * @param height    Board height
+     * @param length    Count of moves of solution
+     * @param nodes     Count of expanded nodes
+     * @param parallel  True if search was parallel
+     */
+    public static void solverSearch(long start, int width, int height, int length, long nodes, boolean parallel) {
+        final long nanos = Metrics.record(Operation.SOLVER_SEARCH, start, nodes);
+        if (recording)
+            FlightEvents.solverSearch(nanos, width, height, length, nodes, parallel);
+    }
+
+    /**
+     * JMX adapter of static metrics
+     */
+    private static final class MetricsBean implements MetricsMXBean {
+        @Override
+        public boolean isEnabled() { return Metrics.isEnabled(); }
+
+        @Override
+        public void setEnabled(boolean enabled) { Metrics.setEnabled(enabled); }
+
+        @Override
+        public boolean isRecording() { return Metrics.isRecording(); }
+
+        @Override
+        public LatencySnapshot getSlide() { return Metrics.getHistogram(Operation.SLIDE).snapshot(); }
+
+        @Override
+        public LatencySnapshot getRenderFrame() { return Metrics.getHistogram(Operation.RENDER_FRAME).snapshot(); }
+
+        @Override
+        public LatencySnapshot getTileCut() { return Metrics.getHistogram(Operation.TILE_CUT).snapshot(); }
+
+        @Override
+        public LatencySnapshot getImageDecode() { return Metrics.getHistogram(Operation.IMAGE_DECODE).snapshot(); }
+
+        @Override
+        public LatencySnapshot getSolverSearch() { return Metrics.getHistogram(Operation.SOLVER_SEARCH).snapshot(); }
+
+        @Override
+        public void reset() { Metrics.reset(); }
+    }
+}
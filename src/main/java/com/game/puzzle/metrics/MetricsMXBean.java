@@ -0,0 +1,38 @@
+package com.game.puzzle.metrics;
+
+/**
+ * JMX view of game metrics, registered as
+ * com.game.puzzle:type=Metrics
+ */
+public interface MetricsMXBean {
+    /**
+     * @return  True if histograms are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * @param enabled   Enable recording of histograms, disabled
+     *                  metrics cost single volatile read per operation
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * @return  True if flight recording is running and events are committed
+     */
+    boolean isRecording();
+
+    LatencySnapshot getSlide();
+
+    LatencySnapshot getRenderFrame();
+
+    LatencySnapshot getTileCut();
+
+    LatencySnapshot getImageDecode();
+
+    LatencySnapshot getSolverSearch();
+
+    /**
+     * Clear all histograms
+     */
+    void reset();
+}
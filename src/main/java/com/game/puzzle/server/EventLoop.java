@@ -0,0 +1,159 @@
+package com.game.puzzle.server;
+
+import com.game.puzzle.logic.PuzzleGenerator;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Single thread that owns shard of sessions, all reads, commands
+ * and writes of its sessions run on it. Accepted channels are
+ * handed over by queue, idle sessions are evicted once per sweep.
+ */
+final class EventLoop implements Runnable {
+    private static final long SWEEP_MILLIS = 1000;
+
+    private final GameServer server;
+    private final Selector selector;
+    private final Queue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+    private final PuzzleGenerator generator = new PuzzleGenerator();
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private long lastSweep = System.currentTimeMillis();
+
+    /**
+     * @param server    Server configuration
+     * @param index     Index of loop, used in thread name
+     * @throws IOException  Raises if selector can not be opened
+     */
+    EventLoop(GameServer server, int index) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.thread = new Thread(this, "game-server-loop-" + index);
+    }
+
+    void start() { thread.start(); }
+
+    /**
+     * @param channel   Accepted channel, it is registered on loop thread
+     */
+    void register(SocketChannel channel) {
+        accepted.add(channel);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(SWEEP_MILLIS);
+            } catch (IOException e) {
+                e.printStackTrace();
+                break;
+            }
+
+            final long now = System.currentTimeMillis();
+            registerAccepted(now);
+
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                handle(key, now);
+            }
+
+            if (now - lastSweep >= SWEEP_MILLIS) {
+                evictIdle(now);
+                lastSweep = now;
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * @param now   Current time in millis
+     */
+    private void registerAccepted(long now) {
+        for (SocketChannel channel = accepted.poll(); channel != null; channel = accepted.poll()) {
+            final Session session = new Session(server, channel, generator, now);
+
+            try {
+                channel.configureBlocking(false);
+                session.setKey(channel.register(selector, SelectionKey.OP_READ, session));
+            } catch (IOException e) {
+                session.close();
+            }
+        }
+    }
+
+    /**
+     * @param key   Selected key of session
+     * @param now   Current time in millis
+     */
+    private void handle(SelectionKey key, long now) {
+        final Session session = (Session) key.attachment();
+
+        try {
+            if (key.isWritable())
+                session.write();
+
+            if (key.isValid() && key.isReadable())
+                session.read(now);
+        } catch (IOException | CancelledKeyException e) {
+            session.close();
+        }
+    }
+
+    /**
+     * @param now   Current time in millis
+     */
+    private void evictIdle(long now) {
+        final long deadline = now - server.getIdleTimeout();
+
+        for (SelectionKey key : selector.keys()) {
+            final Session session = (Session) key.attachment();
+            if (key.isValid() && session.getLastActive() < deadline) {
+                server.getStatistics().evicted();
+                session.close();
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys())
+            ((Session) key.attachment()).close();
+
+        for (SocketChannel channel = accepted.poll(); channel != null; channel = accepted.poll()) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                /** server is closed anyway */
+            }
+            server.getStatistics().release();
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stop loop and close all its sessions
+     *
+     * @throws InterruptedException Raises if waiting for loop is interrupted
+     */
+    void close() throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        thread.join();
+    }
+}
@@ -0,0 +1,249 @@
+package com.game.puzzle.server;
+
+import com.game.puzzle.solver.PerfectTable;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Headless server of many independent games in one process. Every
+ * connection is session with its own PuzzleGrid, sessions are sharded
+ * round robin across few event loops, each loop is single thread
+ * with its own selector. Protocol of commands is described in Session.
+ *
+ * Count of sessions is limited, connections over the limit get error
+ * and are closed. Sessions without command for idle timeout are evicted.
+ * By default server listens only on loopback interface.
+ */
+public class GameServer implements Closeable {
+    private final InetSocketAddress address;
+    private final ServerStatistics statistics = new ServerStatistics();
+
+    private int loops = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private int maxSessions = 10_000;
+    private long idleTimeout = 60_000;
+    private int maxSide = 8;
+    private Dimension defaultSize = new Dimension(4, 4);
+
+    private ServerSocketChannel serverChannel = null;
+    private EventLoop[] eventLoops = null;
+    private Thread acceptor = null;
+
+    /**
+     * @param port  Port on loopback interface, 0 picks free port
+     */
+    public GameServer(int port) {
+        this(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * @param address   Listened address
+     */
+    public GameServer(@NotNull InetSocketAddress address) {
+        this.address = address;
+    }
+
+    /**
+     * @param loops Count of event loop threads
+     * @return      Fluent api object
+     */
+    public GameServer setLoops(int loops) {
+        this.loops = loops;
+        return this;
+    }
+
+    /**
+     * @param maxSessions   Count of sessions after which connections are rejected
+     * @return              Fluent api object
+     */
+    public GameServer setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+        return this;
+    }
+
+    /**
+     * @param idleTimeout   Millis without command after which session is evicted
+     * @return              Fluent api object
+     */
+    public GameServer setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    /**
+     * @param maxSide   Maximal board side, it bounds memory of every session
+     * @return          Fluent api object
+     */
+    public GameServer setMaxSide(int maxSide) {
+        this.maxSide = maxSide;
+        return this;
+    }
+
+    /**
+     * @param defaultSize   Board size of new sessions
+     * @return              Fluent api object
+     */
+    public GameServer setDefaultSize(@NotNull Dimension defaultSize) {
+        this.defaultSize = new Dimension(defaultSize);
+        return this;
+    }
+
+    public ServerStatistics getStatistics() { return statistics; }
+
+    public int getMaxSide() { return maxSide; }
+
+    public long getIdleTimeout() { return idleTimeout; }
+
+    public Dimension getDefaultSize() { return new Dimension(defaultSize); }
+
+    /**
+     * @return  Bound address, port is known after start
+     * @throws IOException  Raises if server is not started
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        if (serverChannel == null)
+            throw new IOException("Server is not started!");
+
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * @param text  Board size, e.g. 4x4
+     * @return      Parsed size
+     */
+    Dimension parseSize(@NotNull String text) {
+        final String[] parts = text.split("x");
+
+        if (parts.length == 2 && parts[0].matches("\\d{1,3}") && parts[1].matches("\\d{1,3}")) {
+            final Dimension size = new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+            if (size.width >= 2 && size.height >= 2 && size.width <= maxSide && size.height <= maxSide)
+                return size;
+        }
+        throw new IllegalArgumentException("Wrong board size " + text + "!");
+    }
+
+    /**
+     * Bind socket and start event loops and acceptor thread, missing
+     * perfect tables of supported sizes up to maximal side are built first
+     *
+     * @return  Fluent api object
+     * @throws IOException  Raises if socket can not be bound
+     */
+    public synchronized GameServer start() throws IOException {
+        if (serverChannel != null)
+            throw new IllegalStateException("Server is already started!");
+
+        if (defaultSize.width > maxSide || defaultSize.height > maxSide)
+            throw new IllegalArgumentException("Default board is bigger than maximal side!");
+
+        /** tables are built before first hint, so event loops only look them up */
+        for (int width = 2; width <= maxSide; ++width)
+            for (int height = 2; height <= maxSide; ++height)
+                PerfectTable.forSize(new Dimension(width, height));
+
+        eventLoops = new EventLoop[loops];
+        for (int i = 0; i < loops; ++i)
+            eventLoops[i] = new EventLoop(this, i);
+
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+
+        for (EventLoop loop : eventLoops)
+            loop.start();
+
+        acceptor = new Thread(this::accept, "game-server-acceptor");
+        acceptor.start();
+        return this;
+    }
+
+    /**
+     * Blocking accept loop, connections are handed over round robin
+     */
+    private void accept() {
+        int next = 0;
+
+        while (serverChannel.isOpen()) {
+            final SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                /** channel has been closed by close() */
+                break;
+            }
+
+            if (!statistics.reserve(maxSessions)) {
+                GameServer.reject(channel);
+                continue;
+            }
+
+            eventLoops[next].register(channel);
+            next = (next + 1) % eventLoops.length;
+        }
+    }
+
+    /**
+     * @param channel   Connection over sessions limit
+     */
+    private static void reject(SocketChannel channel) {
+        try {
+            channel.write(ByteBuffer.wrap("ERR server is full\n".getBytes(StandardCharsets.US_ASCII)));
+            channel.close();
+        } catch (IOException e) {
+            /** client is dropped anyway */
+        }
+    }
+
+    /**
+     * Stop accepting and close all sessions
+     *
+     * @throws IOException  Raises if server socket can not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (serverChannel == null)
+            return;
+
+        serverChannel.close();
+        try {
+            acceptor.join();
+            for (EventLoop loop : eventLoops)
+                loop.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Run server from command line, statistics are printed every 10 seconds
+     *
+     * @param args  Port, event loops count, maximal sessions count and idle timeout in seconds
+     * @throws Exception    Raises if server can not be started
+     */
+    public static void main(String[] args) throws Exception {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        final GameServer server = new GameServer(port);
+
+        if (args.length > 1)
+            server.setLoops(Integer.parseInt(args[1]));
+        if (args.length > 2)
+            server.setMaxSessions(Integer.parseInt(args[2]));
+        if (args.length > 3)
+            server.setIdleTimeout(Long.parseLong(args[3]) * 1000);
+
+        server.start();
+        System.out.println("Listening on " + server.getAddress());
+
+        while (true) {
+            Thread.sleep(10_000);
+            System.out.println(server.getStatistics());
+        }
+    }
+}
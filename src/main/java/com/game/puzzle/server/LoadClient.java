@@ -0,0 +1,233 @@
+package com.game.puzzle.server;
+
+import com.game.puzzle.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local load generator of game server. Every simulated player keeps
+ * one connection and plays in closed loop: shuffle, then hint and
+ * slide of hinted tile until board is ordered. Players are spread
+ * across few threads, each thread drives its players with selector.
+ */
+public class LoadClient {
+    private final InetSocketAddress address;
+    private final int clients;
+    private final String size;
+    private final int threads;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder connected = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param address   Address of game server
+     * @param clients   Count of simulated players
+     * @param size      Board size, e.g. 4x4
+     * @param threads   Count of client threads
+     */
+    public LoadClient(InetSocketAddress address, int clients, String size, int threads) {
+        this.address = address;
+        this.clients = clients;
+        this.size = size;
+        this.threads = threads;
+    }
+
+    /**
+     * Single simulated player
+     */
+    private final class Player {
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocate(Session.MAX_LINE);
+        private ByteBuffer output = null;
+        private long sentAt = 0;
+
+        Player(SocketChannel channel) { this.channel = channel; }
+
+        /**
+         * @param command   Command line without new line character
+         * @param key       Key of player
+         */
+        void send(String command, SelectionKey key) {
+            output = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.US_ASCII));
+            sentAt = System.nanoTime();
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        /**
+         * @param response  Response line
+         * @param key       Key of player
+         */
+        void receive(String response, SelectionKey key) {
+            latency.record(System.nanoTime() - sentAt, 1);
+
+            if (response.startsWith("ERR")) {
+                errors.increment();
+                if (response.equals("ERR server is full"))
+                    rejected.increment();
+                close(key);
+                return;
+            }
+
+            final String[] args = response.split(" ");
+            if (args.length == 4) {
+                /** hint: OK x y remaining */
+                send("slide " + args[1] + " " + args[2], key);
+            } else if (args.length == 3 && args[2].equals("1")) {
+                /** slide that ordered board */
+                solved.increment();
+                send("shuffle " + size, key);
+            } else if (args.length == 3 || args[1].contains("x")) {
+                send("hint", key);
+            } else {
+                /** hint on ordered board */
+                send("shuffle " + size, key);
+            }
+        }
+
+        /**
+         * @param key   Key of player
+         * @throws IOException  Raises if channel is broken
+         */
+        void handle(SelectionKey key) throws IOException {
+            if (key.isConnectable()) {
+                channel.finishConnect();
+                connected.increment();
+                send("shuffle " + size, key);
+            } else if (key.isWritable()) {
+                channel.write(output);
+                if (!output.hasRemaining())
+                    key.interestOps(SelectionKey.OP_READ);
+            } else if (key.isReadable()) {
+                if (channel.read(input) == -1) {
+                    errors.increment();
+                    close(key);
+                    return;
+                }
+
+                input.flip();
+                for (int i = input.position(); i < input.limit(); ++i) {
+                    if (input.get(i) == '\n') {
+                        final byte[] line = new byte[i - input.position()];
+                        input.get(line);
+                        input.get();
+                        input.compact();
+
+                        /** player waits for single response at time */
+                        receive(new String(line, StandardCharsets.US_ASCII), key);
+                        return;
+                    }
+                }
+                input.compact();
+            }
+        }
+
+        void close(SelectionKey key) {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                /** player is dropped anyway */
+            }
+        }
+    }
+
+    /**
+     * @param count Count of players driven by this thread
+     */
+    private void drive(int count) {
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < count; ++i) {
+                final SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.connect(address);
+                channel.register(selector, SelectionKey.OP_CONNECT, new Player(channel));
+            }
+
+            while (running) {
+                selector.select(100);
+
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+
+                    final Player player = (Player) key.attachment();
+                    try {
+                        player.handle(key);
+                    } catch (IOException e) {
+                        errors.increment();
+                        player.close(key);
+                    }
+                }
+            }
+
+            for (SelectionKey key : selector.keys())
+                key.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Play for given time and print report
+     *
+     * @param seconds   Duration of test
+     * @throws InterruptedException Raises if test is interrupted
+     */
+    public void run(int seconds) throws InterruptedException {
+        final Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; ++i) {
+            final int count = clients / threads + (i < clients % threads ? 1 : 0);
+            workers[i] = new Thread(() -> drive(count), "load-client-" + i);
+            workers[i].start();
+        }
+
+        /** connecting is not measured */
+        Thread.sleep(1000);
+        latency.reset();
+        solved.reset();
+
+        Thread.sleep(seconds * 1000L);
+        final long requests = latency.getCount();
+
+        running = false;
+        for (Thread worker : workers)
+            worker.join();
+
+        System.out.println(String.format(
+                "clients=%d connected=%d rejected=%d errors=%d requests/s=%d solved/s=%d p50=%dus p99=%dus max=%dus",
+                clients, connected.sum(), rejected.sum(), errors.sum(),
+                requests / seconds, solved.sum() / seconds,
+                latency.getPercentile(50) / 1000, latency.getPercentile(99) / 1000, latency.getMaxNanos() / 1000
+        ));
+    }
+
+    /**
+     * @param args  Port, clients count, seconds, board size and threads count
+     * @throws Exception    Raises if test is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : 7777;
+        final int clients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        final String size = args.length > 3 ? args[3] : "4x4";
+        final int threads = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+
+        new LoadClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), clients, size, threads)
+                .run(seconds);
+    }
+}
@@ -0,0 +1,81 @@
+package com.game.puzzle.server;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative counters of game server, they are
+ * updated by acceptor and all event loops
+ */
+public class ServerStatistics {
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder pauses = new LongAdder();
+
+    /**
+     * @param limit Maximal count of sessions
+     * @return      True if session has been reserved
+     */
+    boolean reserve(int limit) {
+        while (true) {
+            final int current = sessions.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+
+            if (sessions.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    void release() { sessions.decrementAndGet(); }
+
+    void evicted() { evicted.increment(); }
+
+    void command() { commands.increment(); }
+
+    void error() { errors.increment(); }
+
+    void paused() { pauses.increment(); }
+
+    /**
+     * @return  Count of open sessions
+     */
+    public int getSessions() { return sessions.get(); }
+
+    public long getAccepted() { return accepted.sum(); }
+
+    /**
+     * @return  Count of connections closed at once because server was full
+     */
+    public long getRejected() { return rejected.sum(); }
+
+    /**
+     * @return  Count of sessions closed after idle timeout
+     */
+    public long getEvicted() { return evicted.sum(); }
+
+    public long getCommands() { return commands.sum(); }
+
+    public long getErrors() { return errors.sum(); }
+
+    /**
+     * @return  Count of reads suspended because client did not read responses
+     */
+    public long getPauses() { return pauses.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "sessions=%d accepted=%d rejected=%d evicted=%d commands=%d errors=%d pauses=%d",
+                getSessions(), getAccepted(), getRejected(), getEvicted(), getCommands(), getErrors(), getPauses()
+        );
+    }
+}
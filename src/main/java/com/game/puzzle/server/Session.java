@@ -0,0 +1,283 @@
+package com.game.puzzle.server;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.solver.Hint;
+import com.game.puzzle.solver.HintEngine;
+import com.game.puzzle.solver.ManhattanHeuristic;
+import com.game.puzzle.solver.PerfectTable;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single player connection with its own board. It is used only by
+ * event loop that owns it, so nothing is synchronized. Memory of
+ * session is bounded: input and output buffers have fixed size and
+ * board and hint solution are bounded by maximal board side.
+ *
+ * Commands are lines of ASCII text, every command gets single line:
+ *
+ *   slide x y       -> OK moved ordered     (moved and ordered are 0 or 1)
+ *   shuffle [WxH]   -> OK WxH
+ *   state           -> OK WxH t,t,...,t     (tiles row by row, blank is W*H-1)
+ *   hint            -> OK x y remaining     (OK none if board is ordered)
+ *   quit            -> OK bye
+ *
+ * Wrong command gets ERR message. Next command is read only if output
+ * buffer has room for the longest response, so client that does not
+ * read responses stops being read instead of growing server memory.
+ */
+final class Session {
+    static final int MAX_LINE = 256;
+
+    private final GameServer server;
+    private final SocketChannel channel;
+    private final PuzzleGenerator generator;
+    private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE);
+    private final ByteBuffer output;
+    private final int maxResponse;
+
+    private SelectionKey key = null;
+    private PuzzleGrid grid;
+    private HintEngine hints = null;
+    private long lastActive;
+    private boolean paused = false;
+    private boolean closing = false;
+
+    /**
+     * @param server    Server configuration
+     * @param channel   Accepted non blocking channel
+     * @param generator Generator of event loop
+     * @param now       Current time in millis
+     */
+    Session(GameServer server, SocketChannel channel, PuzzleGenerator generator, long now) {
+        this.server = server;
+        this.channel = channel;
+        this.generator = generator;
+        this.grid = new PuzzleGrid(server.getDefaultSize());
+        this.lastActive = now;
+
+        /** state of the biggest board: header and up to four digits with comma per tile */
+        this.maxResponse = 32 + 5 * server.getMaxSide() * server.getMaxSide();
+        this.output = ByteBuffer.allocate(2 * maxResponse);
+        grid.shuffle(generator);
+    }
+
+    void setKey(SelectionKey key) { this.key = key; }
+
+    long getLastActive() { return lastActive; }
+
+    /**
+     * @param now   Current time in millis
+     * @throws IOException  Raises if channel is broken
+     */
+    void read(long now) throws IOException {
+        if (channel.read(input) == -1) {
+            close();
+            return;
+        }
+
+        lastActive = now;
+        process();
+    }
+
+    /**
+     * @throws IOException  Raises if channel is broken
+     */
+    void write() throws IOException {
+        output.flip();
+        channel.write(output);
+        output.compact();
+
+        /** output drained, buffered commands are executed before next read */
+        process();
+    }
+
+    /**
+     * Execute every complete line while output has room for response
+     *
+     * @throws IOException  Raises if channel is broken
+     */
+    private void process() throws IOException {
+        input.flip();
+        boolean incomplete = false;
+
+        while (!closing && output.remaining() >= maxResponse) {
+            int end = -1;
+            for (int i = input.position(); i < input.limit(); ++i) {
+                if (input.get(i) == '\n') {
+                    end = i;
+                    break;
+                }
+            }
+
+            if (end == -1) {
+                incomplete = true;
+                break;
+            }
+
+            final byte[] line = new byte[end - input.position()];
+            input.get(line);
+            input.get();
+
+            server.getStatistics().command();
+            respond(execute(new String(line, StandardCharsets.US_ASCII).trim()));
+        }
+
+        final boolean full = incomplete && input.position() == 0 && input.limit() == input.capacity();
+        input.compact();
+
+        if (full) {
+            closing = true;
+            respond("ERR line is too long");
+        }
+        update();
+    }
+
+    /**
+     * Set interest of key from buffers state, channel is closed
+     * when session is closing and all responses have been sent
+     *
+     * @throws IOException  Raises if channel is broken
+     */
+    private void update() throws IOException {
+        if (closing && output.position() == 0) {
+            close();
+            return;
+        }
+
+        final boolean readable = !closing && output.remaining() >= maxResponse;
+        if (!readable && !closing && !paused)
+            server.getStatistics().paused();
+        paused = !readable && !closing;
+
+        key.interestOps(
+                (readable ? SelectionKey.OP_READ : 0)
+                        | (output.position() > 0 ? SelectionKey.OP_WRITE : 0)
+        );
+    }
+
+    /**
+     * @param response  Line without new line character
+     */
+    private void respond(String response) {
+        output.put(response.getBytes(StandardCharsets.US_ASCII)).put((byte) '\n');
+    }
+
+    /**
+     * @param line  Command line
+     * @return      Response line
+     */
+    String execute(String line) {
+        final String[] args = line.split(" +");
+
+        try {
+            switch (args[0]) {
+                case "slide":
+                    return slide(args);
+
+                case "shuffle":
+                    return shuffle(args);
+
+                case "state":
+                    return state();
+
+                case "hint":
+                    return hint();
+
+                case "quit":
+                    closing = true;
+                    return "OK bye";
+
+                default:
+                    server.getStatistics().error();
+                    return "ERR unknown command " + args[0];
+            }
+        } catch (IllegalArgumentException e) {
+            server.getStatistics().error();
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    private String slide(String[] args) {
+        if (args.length != 3)
+            throw new IllegalArgumentException("slide takes x and y!");
+
+        final boolean moved = grid.slide(new Point(Integer.parseInt(args[1]), Integer.parseInt(args[2])));
+        return "OK " + (moved ? 1 : 0) + " " + (grid.isOrdered() ? 1 : 0);
+    }
+
+    private String shuffle(String[] args) {
+        if (args.length > 1) {
+            final Dimension size = server.parseSize(args[1]);
+            if (!size.equals(grid.getSize())) {
+                grid = new PuzzleGrid(size);
+                hints = null;
+            }
+        }
+
+        grid.shuffle(generator);
+        if (hints != null)
+            hints.reset();
+
+        return "OK " + grid.getSize().width + "x" + grid.getSize().height;
+    }
+
+    private String state() {
+        final BoardState state = grid.getState();
+        final StringBuilder response = new StringBuilder(maxResponse)
+                .append("OK ").append(state.getWidth()).append('x').append(state.getHeight()).append(' ');
+
+        for (int cell = 0; cell < state.getCellCount(); ++cell) {
+            if (cell > 0)
+                response.append(',');
+            response.append(state.get(cell));
+        }
+        return response.toString();
+    }
+
+    /**
+     * Engine does not search in background, hint is answered at once
+     * from perfect table or from reduction solution. Tables are built
+     * by server start, so they are only looked up here.
+     */
+    private String hint() {
+        if (hints == null) {
+            hints = new HintEngine(ManhattanHeuristic::withLinearConflict, PerfectTable.find(grid.getSize()))
+                    .setBackgroundSearch(false);
+        }
+
+        final Hint hint = hints.request(grid.getState(), null);
+        if (hint == null)
+            return "OK none";
+
+        final int width = grid.getState().getWidth();
+        return "OK " + hint.getCell() % width + " " + hint.getCell() / width + " " + hint.getRemaining();
+    }
+
+    /**
+     * Close channel and release session, it can be called many times
+     */
+    void close() {
+        if (!channel.isOpen())
+            return;
+
+        closing = true;
+        if (key != null)
+            key.cancel();
+
+        try {
+            channel.close();
+        } catch (IOException e) {
+            /** connection is dropped anyway */
+        }
+        server.getStatistics().release();
+    }
+}
@@ -0,0 +1,182 @@
+package com.game.puzzle.session;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.logic.SecondsTimer;
+
+import javax.validation.constraints.NotNull;
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable state of single game. Binary form has fixed size
+ * for every board, it is versioned and ends with CRC32 of
+ * all previous bytes. Java serialization is not used.
+ *
+ * Layout, little endian:
+ * - magic (int), version (short), width, height (short)
+ * - sequence of save (long), elapsed millis (long)
+ * - image key length (byte) and UTF-8 bytes, up to 63 bytes
+ * - tile number of every cell (short), up to MAX_CELLS
+ * - CRC32 (int)
+ */
+public class GameSnapshot {
+    static final int MAGIC = 0x50534E31;
+    static final short VERSION = 1;
+
+    /** Maximum count of board cells, 32x32 board */
+    public static final int MAX_CELLS = 1024;
+    public static final int MAX_IMAGE_KEY = 63;
+
+    private static final int SEQUENCE_OFFSET = 10;
+    private static final int ELAPSED_OFFSET = 18;
+    private static final int IMAGE_KEY_OFFSET = 26;
+    private static final int TILES_OFFSET = IMAGE_KEY_OFFSET + 1 + MAX_IMAGE_KEY;
+    private static final int CRC_OFFSET = TILES_OFFSET + 2 * MAX_CELLS;
+
+    /** Size of every snapshot in bytes */
+    public static final int SIZE = CRC_OFFSET + 4;
+
+    private final BoardState state;
+    private final long elapsedMillis;
+    private final String imageKey;
+    private final long sequence;
+
+    /**
+     * @param state         Board, it is copied
+     * @param elapsedMillis Elapsed time of game
+     * @param imageKey      Identity of puzzle image, e.g. resource name
+     */
+    public GameSnapshot(@NotNull BoardState state, long elapsedMillis, @NotNull String imageKey) {
+        this(state.copy(), elapsedMillis, imageKey, 0);
+    }
+
+    private GameSnapshot(BoardState state, long elapsedMillis, String imageKey, long sequence) {
+        if (state.getCellCount() > MAX_CELLS)
+            throw new IllegalArgumentException("Board is too large to be saved!");
+
+        if (imageKey.getBytes(StandardCharsets.UTF_8).length > MAX_IMAGE_KEY)
+            throw new IllegalArgumentException("Image key is too long!");
+
+        this.state = state;
+        this.elapsedMillis = elapsedMillis;
+        this.imageKey = imageKey;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @param grid      Played grid
+     * @param timer     Timer of game, null if not started
+     * @param imageKey  Identity of puzzle image
+     * @return          Snapshot of game
+     */
+    public static GameSnapshot of(@NotNull PuzzleGrid grid, SecondsTimer timer, @NotNull String imageKey) {
+        return new GameSnapshot(grid.getState(), timer == null ? 0 : timer.getElapsedMillis(), imageKey);
+    }
+
+    /**
+     * @return  Copy of saved board
+     */
+    public BoardState getState() { return state.copy(); }
+
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    public String getImageKey() { return imageKey; }
+
+    /**
+     * @return  Sequence of save, higher is newer
+     */
+    long getSequence() { return sequence; }
+
+    /**
+     * Encode snapshot straight into buffer, buffer position is not changed
+     *
+     * @param buffer    Target buffer, e.g. mapped file
+     * @param offset    Index of first byte
+     * @param sequence  Sequence of save
+     */
+    void write(@NotNull ByteBuffer buffer, int offset, long sequence) {
+        final ByteBuffer target = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        final byte[] key = imageKey.getBytes(StandardCharsets.UTF_8);
+
+        target.putInt(offset, MAGIC)
+                .putShort(offset + 4, VERSION)
+                .putShort(offset + 6, (short) state.getWidth())
+                .putShort(offset + 8, (short) state.getHeight())
+                .putLong(offset + SEQUENCE_OFFSET, sequence)
+                .putLong(offset + ELAPSED_OFFSET, elapsedMillis)
+                .put(offset + IMAGE_KEY_OFFSET, (byte) key.length);
+
+        for (int i = 0; i < MAX_IMAGE_KEY; ++i)
+            target.put(offset + IMAGE_KEY_OFFSET + 1 + i, i < key.length ? key[i] : 0);
+
+        final int cells = state.getCellCount();
+        for (int cell = 0; cell < MAX_CELLS; ++cell)
+            target.putShort(offset + TILES_OFFSET + 2 * cell, (short) (cell < cells ? state.get(cell) : 0));
+
+        target.putInt(offset + CRC_OFFSET, GameSnapshot.checksum(target, offset));
+    }
+
+    /**
+     * @param buffer    Source buffer
+     * @param offset    Index of first byte
+     * @return          Decoded snapshot
+     * @throws IOException  Raises if bytes are not valid snapshot
+     */
+    static GameSnapshot read(@NotNull ByteBuffer buffer, int offset) throws IOException {
+        final ByteBuffer source = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (source.getInt(offset) != MAGIC)
+            throw new IOException("Snapshot is empty!");
+
+        if (source.getShort(offset + 4) != VERSION)
+            throw new IOException("Unsupported snapshot version " + source.getShort(offset + 4) + "!");
+
+        if (source.getInt(offset + CRC_OFFSET) != GameSnapshot.checksum(source, offset))
+            throw new IOException("Snapshot checksum does not match!");
+
+        final Dimension size = new Dimension(source.getShort(offset + 6), source.getShort(offset + 8));
+        final int cells = size.width * size.height;
+        final int keyLength = source.get(offset + IMAGE_KEY_OFFSET);
+
+        if (size.width <= 0 || size.height <= 0 || cells > MAX_CELLS || keyLength < 0 || keyLength > MAX_IMAGE_KEY)
+            throw new IOException("Snapshot is corrupted!");
+
+        final byte[] key = new byte[keyLength];
+        for (int i = 0; i < keyLength; ++i)
+            key[i] = source.get(offset + IMAGE_KEY_OFFSET + 1 + i);
+
+        final int[] tiles = new int[cells];
+        for (int cell = 0; cell < cells; ++cell)
+            tiles[cell] = source.getShort(offset + TILES_OFFSET + 2 * cell) & 0xFFFF;
+
+        try {
+            return new GameSnapshot(
+                    BoardState.of(tiles, size),
+                    source.getLong(offset + ELAPSED_OFFSET),
+                    new String(key, StandardCharsets.UTF_8),
+                    source.getLong(offset + SEQUENCE_OFFSET)
+            );
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Snapshot contains invalid board!", e);
+        }
+    }
+
+    /**
+     * @param buffer    Buffer with snapshot
+     * @param offset    Index of first byte
+     * @return          CRC32 of all bytes before checksum
+     */
+    private static int checksum(ByteBuffer buffer, int offset) {
+        final ByteBuffer bytes = buffer.duplicate();
+        bytes.limit(offset + CRC_OFFSET).position(offset);
+
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,116 @@
+package com.game.puzzle.session;
+
+import javax.validation.constraints.NotNull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory mapped file with two snapshot slots. Saves alternate
+ * between slots, so if save is torn the other slot still holds
+ * previous valid snapshot. Save is only write to mapped memory,
+ * it takes microseconds and can be done after every move.
+ */
+public class SnapshotStore implements Closeable {
+    private static final int SLOTS = 2;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private long sequence = 0;
+
+    /**
+     * @param channel       Opened store file
+     * @throws IOException  Raises if file cannot be mapped
+     */
+    private SnapshotStore(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SLOTS * GameSnapshot.SIZE);
+
+        final GameSnapshot last = load();
+        if (last != null)
+            sequence = last.getSequence();
+    }
+
+    /**
+     * @param file          Store file, created if not exists
+     * @return              Opened store
+     * @throws IOException  Raises if file cannot be opened
+     */
+    public static SnapshotStore open(@NotNull Path file) throws IOException {
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+
+        final FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+
+        try {
+            return new SnapshotStore(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return  Store of last session in user home
+     */
+    public static Path getDefaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".puzzle", "session.bin");
+    }
+
+    /**
+     * @param snapshot  Snapshot written over older slot
+     */
+    public synchronized void save(@NotNull GameSnapshot snapshot) {
+        ++sequence;
+        snapshot.write(buffer, (int) (sequence % SLOTS) * GameSnapshot.SIZE, sequence);
+    }
+
+    /**
+     * @return  Newest valid snapshot, null if store is empty or corrupted
+     */
+    public synchronized GameSnapshot load() {
+        GameSnapshot newest = null;
+
+        for (int slot = 0; slot < SLOTS; ++slot) {
+            try {
+                final GameSnapshot snapshot = GameSnapshot.read(buffer, slot * GameSnapshot.SIZE);
+                if (newest == null || snapshot.getSequence() > newest.getSequence())
+                    newest = snapshot;
+            } catch (IOException e) {
+                /** empty or torn slot, other slot may be valid */
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Remove all snapshots, e.g. after game is finished
+     */
+    public synchronized void clear() {
+        for (int slot = 0; slot < SLOTS; ++slot)
+            buffer.putInt(slot * GameSnapshot.SIZE, 0);
+    }
+
+    /**
+     * Flush mapped pages to storage
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,47 @@
+package com.game.puzzle.solver;
+
+/**
+ * Admissible distance estimate used by solvers. Heuristic
+ * is stateful, it keeps data required for incremental updates
+ * so single instance can not be shared between searches.
+ *
+ * Estimate have to be 0 only for ordered board.
+ */
+public interface Heuristic {
+    /**
+     * Evaluate whole board and initialize incremental state
+     *
+     * @param tiles     Tiles row by row, blank is (tiles.length - 1)
+     * @param width     Board width
+     * @param height    Board height
+     * @return          Estimated moves count
+     */
+    int reset(int[] tiles, int width, int height);
+
+    /**
+     * Called after single tile has been moved, tiles
+     * array is already updated. Undo of move is
+     * reported as move in opposite direction.
+     *
+     * @param tiles Tiles row by row
+     * @param tile  Moved tile number
+     * @param from  Previous cell index of tile
+     * @param to    New cell index of tile
+     * @return      Estimated moves count
+     */
+    int update(int[] tiles, int tile, int from, int to);
+
+    /**
+     * Called after move reported by update has been reverted,
+     * tiles array is already restored. Moves are always reverted
+     * in reversed order so heuristic may keep stack of values.
+     *
+     * @param tiles Tiles row by row
+     * @param tile  Moved tile number
+     * @param from  Cell index of tile before reverted move
+     * @param to    Cell index of tile after reverted move
+     */
+    default void revert(int[] tiles, int tile, int from, int to) {
+        update(tiles, tile, to, from);
+    }
+}
@@ -0,0 +1,55 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Next move suggested for board, it is valid only
+ * for board with the same Zobrist key
+ */
+public class Hint {
+    private final PuzzleGrid.Direction direction;
+    private final int cell;
+    private final int remaining;
+    private final boolean optimal;
+    private final long hash;
+
+    Hint(@NotNull PuzzleGrid.Direction direction, int cell, int remaining, boolean optimal, long hash) {
+        this.direction = direction;
+        this.cell = cell;
+        this.remaining = remaining;
+        this.optimal = optimal;
+        this.hash = hash;
+    }
+
+    /**
+     * @return  Direction in which tile has to be slid
+     */
+    public PuzzleGrid.Direction getDirection() { return direction; }
+
+    /**
+     * @return  Cell index of tile that has to be slid
+     */
+    public int getCell() { return cell; }
+
+    /**
+     * @return  Count of moves of known solution, -1 if there is no known solution
+     */
+    public int getRemaining() { return remaining; }
+
+    /**
+     * @return  True if move belongs to the shortest solution
+     */
+    public boolean isOptimal() { return optimal; }
+
+    /**
+     * @return  Zobrist key of board for which hint was computed
+     */
+    public long getHash() { return hash; }
+
+    @Override
+    public String toString() {
+        return direction + "@" + cell + (optimal ? " optimal " : " ") + remaining;
+    }
+}
@@ -0,0 +1,501 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.logic.TranspositionTable;
+import com.game.puzzle.logic.Zobrist;
+import com.game.puzzle.metrics.Metrics;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Computes next best move in background. Every request cancels
+ * running search and answers at once from known solution:
+ *
+ * - if board has been moved along known solution the rest of it is reused,
+ * - if board has been moved elsewhere, the move is reverted and known
+ *   solution is followed, search of shortest one starts from the bound
+ *   of previous solution minus count of moved tiles,
+ * - otherwise move that lowers heuristic the most is suggested, boards
+ *   too big for optimal search get solution of ReductionSolver.
+ *
+ * Searches and reductions run on single shared daemon thread, so
+ * event dispatch thread is never blocked by request. Boards with
+ * perfect table get optimal hint at once without search.
+ */
+public class HintEngine {
+    @FunctionalInterface
+    public interface HintListener {
+        /**
+         * Called on search thread when shortest solution or,
+         * for boards too big for search, reduction has been found
+         *
+         * @param hint  First move of found solution
+         */
+        void hintFound(Hint hint);
+    }
+
+    /** Larger boards get hints of reduction solver, optimal search would take too long */
+    public static final int MAX_SEARCH_CELLS = 16;
+
+    /** Size of transposition table of searches in bytes */
+    private static final long TABLE_BUDGET = 16 << 20;
+
+    /**
+     * Lazy holder of thread shared by all engines, searches run
+     * one by one on it so they share single transposition table
+     */
+    private static final class Worker {
+        static final ExecutorService INSTANCE = Worker.create();
+        static final TranspositionTable TABLE = new TranspositionTable(TABLE_BUDGET);
+
+        private static ExecutorService create() {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                        final Thread thread = new Thread(runnable, "hint-engine");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+            );
+
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+
+    private final Supplier<? extends Heuristic> heuristic;
+    private final SolverStatistics statistics = new SolverStatistics();
+    private final ReductionSolver reduction = new ReductionSolver();
+    private boolean backgroundSearch = true;
+
+    /** Replaced when table is built in background. Guarded by this */
+    private PerfectTable table;
+
+    /** Known solution, moves after index solve base board. Guarded by this */
+    private BoardState base = null;
+    private PuzzleGrid.Direction[] moves = null;
+    private int index = 0;
+    private boolean optimal = false;
+    private int lowerBound = 0;
+
+    /** Running search. Guarded by this */
+    private AtomicBoolean cancelled = null;
+    private Future<?> search = null;
+
+    /**
+     * Creates engine with manhattan distance and linear conflicts
+     */
+    public HintEngine() {
+        this(ManhattanHeuristic::withLinearConflict);
+    }
+
+    /**
+     * @param heuristic Factory of heuristic, called once per search
+     */
+    public HintEngine(@NotNull Supplier<? extends Heuristic> heuristic) {
+        this(heuristic, null);
+    }
+
+    /**
+     * @param heuristic Factory of heuristic, called once per search
+     * @param table     Table used instead of search for boards of its size, may be null
+     */
+    public HintEngine(@NotNull Supplier<? extends Heuristic> heuristic, PerfectTable table) {
+        this.heuristic = heuristic;
+        this.table = table;
+    }
+
+    /**
+     * Engine is created at once, missing perfect table is built in
+     * background and search is used until the table is ready
+     *
+     * @param size  Board size
+     * @return      Engine with perfect table of small boards, pattern
+     *              databases if they have been built, linear conflicts otherwise
+     */
+    public static HintEngine forSize(@NotNull Dimension size) {
+        final PerfectTable table = PerfectTable.find(size);
+        if (table != null)
+            return new HintEngine(ManhattanHeuristic::withLinearConflict, table);
+
+        if (PerfectTable.isSupported(size)) {
+            final HintEngine engine = new HintEngine();
+            PerfectTable.buildAsync(size).thenAccept(engine::setPerfectTable);
+            return engine;
+        }
+
+        final PatternPartition partition = PatternPartition.forSize(size);
+        if (partition == null)
+            return new HintEngine();
+
+        try {
+            final PatternDatabase[] databases = partition.load(PatternPartition.getDefaultDirectory());
+            return databases == null
+                    ? new HintEngine()
+                    : new HintEngine(PatternPartition.heuristic(databases));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new HintEngine();
+        }
+    }
+
+    public SolverStatistics getStatistics() { return statistics; }
+
+    /**
+     * @param table Table used instead of search for boards of its size, may be null
+     * @return      Fluent api object
+     */
+    public synchronized HintEngine setPerfectTable(PerfectTable table) {
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * Engines of servers with many boards answer only at once, every
+     * board without perfect table follows solution of ReductionSolver
+     *
+     * @param backgroundSearch  False disables optimal search on shared thread
+     * @return                  Fluent api object
+     */
+    public synchronized HintEngine setBackgroundSearch(boolean backgroundSearch) {
+        this.backgroundSearch = backgroundSearch;
+        return this;
+    }
+
+    /**
+     * Cancel running search and answer from known solution, if it
+     * is not known to be the shortest one search is started
+     *
+     * @param state     Board, it is copied
+     * @param listener  Called on search thread with hint of found solution
+     * @return          Hint available at once, null if board is ordered or not solvable,
+     *                  unsolvable boards too big for search are detected in background
+     */
+    public synchronized Hint request(@NotNull BoardState state, HintListener listener) {
+        cancel();
+
+        if (state.isOrdered()) {
+            forget();
+            return null;
+        }
+
+        if (table != null && table.matches(state)) {
+            final int distance = table.getDistance(state);
+            return distance < 0 ? null : hint(state, table.getMove(state), distance, true);
+        }
+
+        final boolean searched = state.getCellCount() <= MAX_SEARCH_CELLS;
+
+        /** boards reached from known solution are solvable, quadratic check of big boards runs in background */
+        if (!follow(state) && !revert(state)) {
+            forget();
+            if ((searched || !backgroundSearch) && !state.isSolvable())
+                return null;
+        }
+
+        if (moves == null && !backgroundSearch) {
+            base = state.copy();
+            moves = reduction.solve(state).getMoves();
+        }
+
+        if (moves == null && !searched) {
+            final Hint hint = greedy(state);
+            final AtomicBoolean flag = new AtomicBoolean();
+            final BoardState copy = state.copy();
+
+            cancelled = flag;
+            search = Worker.INSTANCE.submit(() -> reduce(copy, flag, listener));
+            return hint;
+        }
+
+        if (moves != null && optimal)
+            return hint(state, moves[index], moves.length - index, true);
+
+        if (backgroundSearch && searched) {
+            final AtomicBoolean flag = new AtomicBoolean();
+            final BoardState copy = state.copy();
+            final PuzzleGrid.Direction[] upper = moves == null ? null : Arrays.copyOfRange(moves, index, moves.length);
+            final int lower = lowerBound;
+
+            cancelled = flag;
+            search = Worker.INSTANCE.submit(() -> solve(copy, upper, lower, flag, listener));
+        }
+
+        return moves != null
+                ? hint(state, moves[index], moves.length - index, false)
+                : greedy(state);
+    }
+
+    /**
+     * Cancel running search, known solution is kept
+     */
+    public synchronized void cancel() {
+        if (cancelled != null) {
+            cancelled.set(true);
+            search.cancel(false);
+            cancelled = null;
+            search = null;
+        }
+    }
+
+    /**
+     * Cancel search and forget known solution, e.g. after new game
+     */
+    public synchronized void reset() {
+        cancel();
+        forget();
+    }
+
+    private void forget() {
+        base = null;
+        moves = null;
+        index = 0;
+        optimal = false;
+        lowerBound = 0;
+    }
+
+    /**
+     * @param state Board
+     * @return      True if board has been reached by moves of known solution
+     */
+    private boolean follow(BoardState state) {
+        if (base == null || base.getWidth() != state.getWidth() || base.getHeight() != state.getHeight())
+            return false;
+
+        if (base.equals(state))
+            return true;
+
+        /** single slide moves up to whole row or column */
+        final BoardState probe = base.copy();
+        final int limit = Math.min(moves.length - index, Math.max(state.getWidth(), state.getHeight()));
+
+        for (int step = 1; step <= limit; ++step) {
+            probe.move(moves[index + step - 1]);
+            if (probe.equals(state)) {
+                base = state.copy();
+                index += step;
+                lowerBound = Math.max(0, lowerBound - step);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Board has been moved away from known solution,
+     * moves are reverted and known solution is followed
+     *
+     * @param state Board
+     * @return      True if board differs by single slide from known solution
+     */
+    private boolean revert(BoardState state) {
+        if (base == null || base.getWidth() != state.getWidth() || base.getHeight() != state.getHeight())
+            return false;
+
+        final int limit = Math.max(state.getWidth(), state.getHeight()) - 1;
+        for (PuzzleGrid.Direction direction : PuzzleGrid.Direction.values()) {
+            for (int count = 1; count <= limit; ++count) {
+                final BoardState probe = base.copy();
+                if (!probe.shift(direction, count))
+                    break;
+
+                if (!probe.equals(state))
+                    continue;
+
+                final PuzzleGrid.Direction[] reverted = new PuzzleGrid.Direction[count + moves.length - index];
+                Arrays.fill(reverted, 0, count, direction.opposite());
+                System.arraycopy(moves, index, reverted, count, moves.length - index);
+
+                base = state.copy();
+                moves = reverted;
+                index = 0;
+                optimal = false;
+                lowerBound = Math.max(0, lowerBound - count);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param state Board
+     * @return      Move that lowers heuristic the most
+     */
+    private Hint greedy(BoardState state) {
+        if (state.getCellCount() > MAX_SEARCH_CELLS)
+            return HintEngine.closest(state);
+
+        final Heuristic estimate = heuristic.get();
+        PuzzleGrid.Direction best = null;
+        int bestValue = Integer.MAX_VALUE;
+
+        for (PuzzleGrid.Direction direction : PuzzleGrid.Direction.values()) {
+            final BoardState probe = state.copy();
+            if (!probe.move(direction))
+                continue;
+
+            final int value = estimate.reset(probe.toArray(), probe.getWidth(), probe.getHeight());
+            if (value < bestValue) {
+                best = direction;
+                bestValue = value;
+            }
+        }
+        return best == null ? null : hint(state, best, -1, false);
+    }
+
+    /**
+     * Heuristic tables of big boards take megabytes, so only
+     * manhattan distance of moved tile is compared
+     *
+     * @param state Board
+     * @return      Move that brings tile the closest to its goal cell
+     */
+    private static Hint closest(BoardState state) {
+        final int width = state.getWidth();
+        final int blank = state.getBlank();
+        PuzzleGrid.Direction best = null;
+        int bestValue = Integer.MAX_VALUE;
+
+        for (PuzzleGrid.Direction direction : PuzzleGrid.Direction.values()) {
+            final int cell = state.getMovableCell(direction);
+            if (cell == -1)
+                continue;
+
+            final int tile = state.get(cell);
+            final int value = Math.abs(tile % width - blank % width) + Math.abs(tile / width - blank / width)
+                    - Math.abs(tile % width - cell % width) - Math.abs(tile / width - cell / width);
+
+            if (value < bestValue) {
+                best = direction;
+                bestValue = value;
+            }
+        }
+        return best == null ? null : hint(state, best, -1, false);
+    }
+
+    /**
+     * @param state     Board
+     * @param direction Suggested move
+     * @param remaining Length of known solution
+     * @param optimal   True if solution is the shortest one
+     * @return          Hint of board
+     */
+    private static Hint hint(BoardState state, PuzzleGrid.Direction direction, int remaining, boolean optimal) {
+        return new Hint(
+                direction,
+                state.getMovableCell(direction),
+                remaining,
+                optimal,
+                Zobrist.forState(state).hash(state)
+        );
+    }
+
+    /**
+     * Solve board too big for optimal search by ReductionSolver
+     *
+     * @param state     Board
+     * @param flag      Cancel flag of reduction, it is checked when reduction finishes
+     * @param listener  Listener of found hint
+     */
+    private void reduce(BoardState state, AtomicBoolean flag, HintListener listener) {
+        if (flag.get() || !state.isSolvable())
+            return;
+
+        final PuzzleGrid.Direction[] solution = reduction.solve(state).getMoves();
+
+        final Hint hint;
+        synchronized (this) {
+            if (flag.get())
+                return;
+
+            base = state;
+            moves = solution;
+            index = 0;
+            optimal = false;
+            lowerBound = 0;
+            cancelled = null;
+            search = null;
+            hint = HintEngine.hint(state, solution[0], solution.length, false);
+        }
+
+        if (listener != null)
+            listener.hintFound(hint);
+    }
+
+    /**
+     * IDA* started from known lower bound, if no solution shorter
+     * than upper is found then upper is the shortest one
+     *
+     * @param state     Board
+     * @param upper     Known solution, null if there is no such solution
+     * @param lower     Known lower bound of solution length
+     * @param flag      Cancel flag of search
+     * @param listener  Listener of found hint
+     */
+    private void solve(
+            BoardState state,
+            PuzzleGrid.Direction[] upper,
+            int lower,
+            AtomicBoolean flag,
+            HintListener listener) {
+        final long start = System.nanoTime();
+        final IdaStarSearch ida = new IdaStarSearch(
+                state.toArray(), state.getWidth(), state.getHeight(), heuristic.get()
+        );
+        ida.setCancelled(flag);
+        ida.setTranspositionTable(Worker.TABLE);
+
+        PuzzleGrid.Direction[] solution = null;
+        int bound = Math.max(ida.getEstimate(), lower);
+
+        while (solution == null) {
+            if (upper != null && bound >= upper.length) {
+                solution = upper;
+                break;
+            }
+
+            final int result = ida.search(bound);
+            if (result == IdaStarSearch.CANCELLED)
+                return;
+
+            if (result == IdaStarSearch.FOUND)
+                solution = ida.getPath();
+            else
+                bound = result;
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        statistics.record(ida.getNodes(), elapsed);
+        if (Metrics.isActive())
+            Metrics.solverSearch(start, state.getWidth(), state.getHeight(), solution.length, ida.getNodes(), false);
+
+        final Hint hint;
+        synchronized (this) {
+            if (flag.get())
+                return;
+
+            base = state;
+            moves = solution;
+            index = 0;
+            optimal = true;
+            lowerBound = solution.length;
+            cancelled = null;
+            search = null;
+            hint = HintEngine.hint(state, solution[0], solution.length, true);
+        }
+
+        if (listener != null)
+            listener.hintFound(hint);
+    }
+}
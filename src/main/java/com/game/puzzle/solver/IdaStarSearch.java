@@ -0,0 +1,261 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.logic.TranspositionTable;
+import com.game.puzzle.logic.Zobrist;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Single depth first search of iterative deepening A*,
+ * it works on its own copy of tiles and never allocates
+ * while expanding nodes. Optional transposition table
+ * prunes boards reached again by other path that is
+ * not shorter, e.g. by rotation of 2x2 block.
+ */
+class IdaStarSearch {
+    static final int FOUND = -1;
+    static final int CANCELLED = -2;
+    static final int NOT_FOUND = Integer.MAX_VALUE;
+
+    /** nodes expanded between checks of cancel flag */
+    private static final int CANCEL_CHECK_MASK = 0xFFF;
+
+    /** boards with small slack of bound have small subtrees, probe of table costs more than it saves */
+    static final int MIN_TABLE_SLACK = 2;
+
+    private static final PuzzleGrid.Direction[] DIRECTIONS = PuzzleGrid.Direction.values();
+
+    private final int[] tiles;
+    private final int blankTile;
+    private final Heuristic heuristic;
+
+    /** cell of tile that moves in direction, indexed by blank * 4 + direction, -1 if none */
+    private final int[] movableCells;
+
+    private int blank;
+    private int estimate;
+    private byte[] path = new byte[64];
+    private int pathLength;
+    private int solutionLength;
+    private long nodes;
+    private AtomicBoolean cancelled;
+
+    private TranspositionTable table = null;
+    private Zobrist zobrist = null;
+    private long hash = 0;
+    private int generation = 0;
+
+    /**
+     * @param tiles     Tiles row by row, array is copied
+     * @param width     Board width
+     * @param height    Board height
+     * @param heuristic Not shared heuristic instance
+     */
+    IdaStarSearch(int[] tiles, int width, int height, Heuristic heuristic) {
+        this.tiles = tiles.clone();
+        this.blankTile = tiles.length - 1;
+        this.heuristic = heuristic;
+        this.movableCells = IdaStarSearch.createMovableCells(width, height);
+
+        for (int i = tiles.length - 1; i >= 0; --i) {
+            if (tiles[i] == blankTile)
+                blank = i;
+        }
+        this.estimate = heuristic.reset(this.tiles, width, height);
+    }
+
+    /**
+     * @param width     Board width
+     * @param height    Board height
+     * @return          Table of movable cells for every blank position
+     */
+    static int[] createMovableCells(int width, int height) {
+        final int[] cells = new int[width * height * DIRECTIONS.length];
+
+        for (int blank = width * height - 1; blank >= 0; --blank) {
+            for (PuzzleGrid.Direction dir : DIRECTIONS) {
+                final int x = blank % width - dir.offsetX;
+                final int y = blank / width - dir.offsetY;
+
+                cells[blank * DIRECTIONS.length + dir.ordinal()] = x < 0 || y < 0 || x >= width || y >= height
+                        ? -1
+                        : y * width + x;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @param direction Direction ordinal
+     * @return          Ordinal of direction that reverts move
+     */
+    static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    int getEstimate() { return estimate; }
+
+    int getPathLength() { return pathLength; }
+
+    /**
+     * @param cancelled Flag that aborts search when it is set
+     */
+    void setCancelled(AtomicBoolean cancelled) { this.cancelled = cancelled; }
+
+    long getNodes() { return nodes; }
+
+    /**
+     * Every search call starts new generation of table, so boards
+     * are pruned only by visits of the same iteration. Table is
+     * not thread safe, it can not be shared by running searches.
+     *
+     * @param table Table of visited boards, null disables it
+     */
+    void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+        this.zobrist = table == null ? null : Zobrist.forCells(tiles.length);
+        this.hash = 0;
+
+        if (zobrist != null) {
+            for (int cell = tiles.length - 1; cell >= 0; --cell)
+                hash ^= zobrist.get(tiles[cell], cell);
+        }
+    }
+
+    /**
+     * Apply move without search, used to descend
+     * into subtree before calling search
+     *
+     * @param direction Direction ordinal
+     * @return          True if move is possible
+     */
+    boolean push(int direction) {
+        final int cell = movableCells[blank * DIRECTIONS.length + direction];
+        if (cell == -1)
+            return false;
+
+        final int tile = tiles[cell];
+        tiles[blank] = tile;
+        tiles[cell] = blankTile;
+        estimate = heuristic.update(tiles, tile, cell, blank);
+        if (zobrist != null)
+            hash = zobrist.move(hash, tile, blankTile, cell, blank);
+        blank = cell;
+        appendPath(pathLength++, direction);
+        return true;
+    }
+
+    /**
+     * Depth first search limited by bound, path
+     * is appended after already pushed moves
+     *
+     * @param bound Maximum f value
+     * @return      FOUND, CANCELLED or minimal f value that exceeded bound
+     */
+    int search(int bound) {
+        if (table != null) {
+            table.nextGeneration();
+            generation = table.getGeneration() << 16;
+        }
+
+        final int previous = pathLength == 0 ? -1 : path[pathLength - 1];
+        final int result = search(pathLength, estimate, bound, previous);
+
+        if (result == FOUND)
+            pathLength = solutionLength;
+        return result;
+    }
+
+    /**
+     * @return  Moves found by last successful search
+     */
+    PuzzleGrid.Direction[] getPath() {
+        final PuzzleGrid.Direction[] moves = new PuzzleGrid.Direction[pathLength];
+        for (int i = 0; i < pathLength; ++i)
+            moves[i] = DIRECTIONS[path[i]];
+        return moves;
+    }
+
+    private int search(int depth, int h, int bound, int previous) {
+        if ((++nodes & CANCEL_CHECK_MASK) == 0 && cancelled != null && cancelled.get())
+            return CANCELLED;
+
+        final int f = depth + h;
+        if (f > bound)
+            return f;
+
+        if (h == 0) {
+            solutionLength = depth;
+            return FOUND;
+        }
+
+        if (table != null && bound - f >= MIN_TABLE_SLACK && visited(depth, bound - f))
+            return NOT_FOUND;
+
+        int min = NOT_FOUND;
+        final int base = blank * DIRECTIONS.length;
+        final int reverted = previous == -1 ? -1 : opposite(previous);
+
+        for (int direction = 0; direction < DIRECTIONS.length; ++direction) {
+            final int cell = movableCells[base + direction];
+            if (cell == -1 || direction == reverted)
+                continue;
+
+            final int tile = tiles[cell];
+            final int target = blank;
+
+            tiles[target] = tile;
+            tiles[cell] = blankTile;
+            blank = cell;
+            if (zobrist != null)
+                hash = zobrist.move(hash, tile, blankTile, cell, target);
+            appendPath(depth, direction);
+
+            final int result = search(depth + 1, heuristic.update(tiles, tile, cell, target), bound, direction);
+            if (result == FOUND || result == CANCELLED)
+                return result;
+
+            blank = target;
+            tiles[target] = blankTile;
+            tiles[cell] = tile;
+            heuristic.revert(tiles, tile, cell, target);
+            if (zobrist != null)
+                hash = zobrist.move(hash, tile, blankTile, cell, target);
+
+            if (result < min)
+                min = result;
+        }
+
+        return min;
+    }
+
+    /**
+     * Board visited in this iteration at the same or lower depth has been
+     * searched with at least the same remaining bound, its result is
+     * already included in minimum of iteration
+     *
+     * @param depth Depth of current board
+     * @param slack Difference of bound and f value, it grows with size of subtree
+     * @return      True if current board can be pruned
+     */
+    private boolean visited(int depth, int slack) {
+        final int visited = table.get(hash, -1);
+        if (visited != -1 && (visited & 0xFFFF0000) == generation && (visited & 0xFFFF) <= depth)
+            return true;
+
+        table.put(hash, generation | depth, slack);
+        return false;
+    }
+
+    /**
+     * @param index     Path index
+     * @param direction Direction ordinal
+     */
+    private void appendPath(int index, int direction) {
+        if (index >= path.length)
+            path = Arrays.copyOf(path, path.length * 2);
+        path[index] = (byte) direction;
+    }
+}
@@ -0,0 +1,123 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.logic.TranspositionTable;
+import com.game.puzzle.metrics.Metrics;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.util.function.Supplier;
+
+/**
+ * Optimal solver based on iterative deepening A*,
+ * returned moves are always the shortest ones. Boards
+ * with perfect table are solved by table lookups.
+ */
+public class IdaStarSolver {
+    private final Supplier<? extends Heuristic> heuristic;
+    private final SolverStatistics statistics = new SolverStatistics();
+    private PerfectTable table = null;
+    private ThreadLocal<TranspositionTable> transpositions = null;
+
+    /**
+     * Creates solver with manhattan distance and linear conflicts
+     */
+    public IdaStarSolver() {
+        this(ManhattanHeuristic::withLinearConflict);
+    }
+
+    /**
+     * @param heuristic Factory of heuristic, called once per solve
+     */
+    public IdaStarSolver(@NotNull Supplier<? extends Heuristic> heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    public SolverStatistics getStatistics() { return statistics; }
+
+    /**
+     * @param table Table used instead of search for boards of its size, null disables it
+     * @return      Fluent api object
+     */
+    public IdaStarSolver setPerfectTable(PerfectTable table) {
+        this.table = table;
+        return this;
+    }
+
+    /**
+     * Every thread that calls solve gets its own table of provided size,
+     * it prunes boards reached again by path that is not shorter
+     *
+     * @param budget    Size of table in bytes, 0 disables it
+     * @return          Fluent api object
+     */
+    public IdaStarSolver setTranspositionBudget(long budget) {
+        this.transpositions = budget <= 0 ? null : ThreadLocal.withInitial(() -> new TranspositionTable(budget));
+        return this;
+    }
+
+    /**
+     * @param grid  Solved grid, it is not modified
+     * @return      Optimal moves
+     */
+    public Solution solve(@NotNull PuzzleGrid grid) {
+        return solve(grid.getState());
+    }
+
+    /**
+     * @param state Solved board, it is not modified
+     * @return      Optimal moves
+     */
+    public Solution solve(@NotNull BoardState state) {
+        if (!state.isSolvable())
+            throw new IllegalArgumentException("Puzzle is not solvable!");
+
+        if (table != null && table.matches(state)) {
+            final Solution solution = table.solve(state);
+            statistics.record(solution.getNodes(), solution.getNanos());
+            return solution;
+        }
+
+        return search(state.toArray(), state.getWidth(), state.getHeight());
+    }
+
+    /**
+     * @param tiles Tiles row by row, blank is (tiles.length - 1)
+     * @param size  Board size
+     * @return      Optimal moves
+     */
+    public Solution solve(@NotNull int[] tiles, @NotNull Dimension size) {
+        return solve(BoardState.of(tiles, size));
+    }
+
+    /**
+     * @param tiles     Tiles row by row
+     * @param width     Board width
+     * @param height    Board height
+     * @return          Optimal moves
+     */
+    private Solution search(int[] tiles, int width, int height) {
+        final long start = System.nanoTime();
+        final IdaStarSearch search = new IdaStarSearch(tiles, width, height, heuristic.get());
+        if (transpositions != null)
+            search.setTranspositionTable(transpositions.get());
+
+        int bound = search.getEstimate();
+        while (true) {
+            final int result = search.search(bound);
+            if (result == IdaStarSearch.FOUND)
+                break;
+
+            bound = result;
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        final PuzzleGrid.Direction[] path = search.getPath();
+        statistics.record(search.getNodes(), elapsed);
+
+        if (Metrics.isActive())
+            Metrics.solverSearch(start, width, height, path.length, search.getNodes(), false);
+        return new Solution(path, search.getNodes(), elapsed);
+    }
+}
@@ -0,0 +1,196 @@
+package com.game.puzzle.solver;
+
+/**
+ * Manhattan distance of every tile, optionally extended
+ * with linear conflicts. Both parts are updated incrementally,
+ * single move changes distance of one tile and conflicts
+ * of two lines crossed by it.
+ */
+public class ManhattanHeuristic implements Heuristic {
+    private final boolean linearConflict;
+
+    private int width;
+    private int height;
+    private int blankTile;
+
+    /** distance of tile placed in cell, indexed by tile * cells + cell */
+    private int[] distances;
+
+    private int[] rowConflicts;
+    private int[] columnConflicts;
+
+    /** buffers used by conflicts calculation */
+    private int[] sequence;
+    private int[] tails;
+
+    private int manhattan;
+    private int conflicts;
+
+    public ManhattanHeuristic(boolean linearConflict) {
+        this.linearConflict = linearConflict;
+    }
+
+    /**
+     * @return  Plain manhattan distance
+     */
+    public static ManhattanHeuristic manhattan() {
+        return new ManhattanHeuristic(false);
+    }
+
+    /**
+     * @return  Manhattan distance with linear conflicts
+     */
+    public static ManhattanHeuristic withLinearConflict() {
+        return new ManhattanHeuristic(true);
+    }
+
+    @Override
+    public int reset(int[] tiles, int width, int height) {
+        if (distances == null || this.width != width || this.height != height)
+            allocate(width, height);
+
+        manhattan = 0;
+        for (int cell = tiles.length - 1; cell >= 0; --cell) {
+            if (tiles[cell] != blankTile)
+                manhattan += distances[tiles[cell] * tiles.length + cell];
+        }
+
+        conflicts = 0;
+        if (linearConflict) {
+            for (int y = 0; y < height; ++y) {
+                rowConflicts[y] = rowConflict(tiles, y);
+                conflicts += rowConflicts[y];
+            }
+
+            for (int x = 0; x < width; ++x) {
+                columnConflicts[x] = columnConflict(tiles, x);
+                conflicts += columnConflicts[x];
+            }
+        }
+
+        return manhattan + conflicts;
+    }
+
+    @Override
+    public int update(int[] tiles, int tile, int from, int to) {
+        final int offset = tile * tiles.length;
+        manhattan += distances[offset + to] - distances[offset + from];
+
+        if (linearConflict) {
+            /**
+             * Horizontal move does not change order of tiles
+             * inside row, only columns are affected and vertical
+             * move affects only rows. Line sequence contains only
+             * tiles that belong to it, so only goal line of moved
+             * tile has to be recalculated.
+             */
+            final int fromX = from % width;
+            final int toX = to % width;
+
+            if (fromX != toX) {
+                final int goalX = tile % width;
+                if (goalX == fromX || goalX == toX) {
+                    conflicts -= columnConflicts[goalX];
+                    columnConflicts[goalX] = columnConflict(tiles, goalX);
+                    conflicts += columnConflicts[goalX];
+                }
+            } else {
+                final int goalY = tile / width;
+                if (goalY == from / width || goalY == to / width) {
+                    conflicts -= rowConflicts[goalY];
+                    rowConflicts[goalY] = rowConflict(tiles, goalY);
+                    conflicts += rowConflicts[goalY];
+                }
+            }
+        }
+
+        return manhattan + conflicts;
+    }
+
+    /**
+     * @param width     Board width
+     * @param height    Board height
+     */
+    private void allocate(int width, int height) {
+        final int cells = width * height;
+
+        this.width = width;
+        this.height = height;
+        this.blankTile = cells - 1;
+        this.distances = new int[cells * cells];
+        this.rowConflicts = new int[height];
+        this.columnConflicts = new int[width];
+        this.sequence = new int[Math.max(width, height)];
+        this.tails = new int[Math.max(width, height)];
+
+        for (int tile = 0; tile < cells; ++tile) {
+            for (int cell = 0; cell < cells; ++cell) {
+                distances[tile * cells + cell] = Math.abs(tile % width - cell % width)
+                        + Math.abs(tile / width - cell / width);
+            }
+        }
+    }
+
+    /**
+     * @param tiles Tiles row by row
+     * @param y     Row index
+     * @return      Extra moves required by tiles in their goal row
+     */
+    private int rowConflict(int[] tiles, int y) {
+        int length = 0;
+        for (int x = 0, cell = y * width; x < width; ++x, ++cell) {
+            final int tile = tiles[cell];
+            if (tile != blankTile && tile / width == y)
+                sequence[length++] = tile % width;
+        }
+        return lineConflict(length);
+    }
+
+    /**
+     * @param tiles Tiles row by row
+     * @param x     Column index
+     * @return      Extra moves required by tiles in their goal column
+     */
+    private int columnConflict(int[] tiles, int x) {
+        int length = 0;
+        for (int y = 0, cell = x; y < height; ++y, cell += width) {
+            final int tile = tiles[cell];
+            if (tile != blankTile && tile % width == x)
+                sequence[length++] = tile / width;
+        }
+        return lineConflict(length);
+    }
+
+    /**
+     * Tiles that are not part of longest increasing sequence
+     * have to leave the line and come back, it costs two moves
+     *
+     * @param length    Length of goal coordinates sequence
+     * @return          Extra moves count
+     */
+    private int lineConflict(int length) {
+        if (length < 2)
+            return 0;
+
+        int increasing = 0;
+        for (int i = 0; i < length; ++i) {
+            final int value = sequence[i];
+
+            int low = 0;
+            int high = increasing;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (tails[middle] < value)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+
+            tails[low] = value;
+            if (low == increasing)
+                ++increasing;
+        }
+
+        return 2 * (length - increasing);
+    }
+}
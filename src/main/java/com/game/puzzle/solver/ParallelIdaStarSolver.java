@@ -0,0 +1,211 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.logic.TranspositionTable;
+import com.game.puzzle.metrics.Metrics;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Optimal solver that expands first levels of search tree
+ * and searches every subtree as separate fork join task.
+ * Tasks share next bound and solution found flag using
+ * atomics, idle workers steal not started subtrees.
+ */
+public class ParallelIdaStarSolver {
+    private static final int SUBTREES_PER_THREAD = 32;
+    private static final int MAX_FRONTIER_DEPTH = 16;
+
+    private final Supplier<? extends Heuristic> heuristic;
+    private final ForkJoinPool pool;
+    private final SolverStatistics statistics = new SolverStatistics();
+    private ThreadLocal<TranspositionTable> transpositions = null;
+
+    /**
+     * @param heuristic Factory of heuristic, called once per subtree
+     * @param pool      Pool used to search subtrees
+     */
+    public ParallelIdaStarSolver(@NotNull Supplier<? extends Heuristic> heuristic, @NotNull ForkJoinPool pool) {
+        this.heuristic = heuristic;
+        this.pool = pool;
+    }
+
+    /**
+     * @param heuristic Factory of heuristic, called once per subtree
+     */
+    public ParallelIdaStarSolver(@NotNull Supplier<? extends Heuristic> heuristic) {
+        this(heuristic, ForkJoinPool.commonPool());
+    }
+
+    public SolverStatistics getStatistics() { return statistics; }
+
+    /**
+     * Every worker thread gets its own table of provided size, subtree
+     * tasks never wait for other tasks so one table is used by single
+     * search at time
+     *
+     * @param budget    Size of table in bytes per thread, 0 disables it
+     * @return          Fluent api object
+     */
+    public ParallelIdaStarSolver setTranspositionBudget(long budget) {
+        this.transpositions = budget <= 0 ? null : ThreadLocal.withInitial(() -> new TranspositionTable(budget));
+        return this;
+    }
+
+    /**
+     * @param grid  Solved grid, it is not modified
+     * @return      Optimal moves
+     */
+    public Solution solve(@NotNull PuzzleGrid grid) {
+        return solve(grid.getState());
+    }
+
+    /**
+     * @param state Solved board, it is not modified
+     * @return      Optimal moves
+     */
+    public Solution solve(@NotNull BoardState state) {
+        if (!state.isSolvable())
+            throw new IllegalArgumentException("Puzzle is not solvable!");
+
+        final long start = System.nanoTime();
+        final int[] tiles = state.toArray();
+        final LongAdder nodes = new LongAdder();
+        final List<byte[]> frontier = createFrontier(tiles, state.getWidth(), state.getHeight());
+        final int frontierDepth = frontier.get(0).length;
+
+        /** bounds smaller than frontier depth are cheap, they are searched from root */
+        final IdaStarSearch root = new IdaStarSearch(tiles, state.getWidth(), state.getHeight(), heuristic.get());
+        PuzzleGrid.Direction[] moves = null;
+        int bound = root.getEstimate();
+
+        while (bound < frontierDepth) {
+            final int result = root.search(bound);
+            if (result == IdaStarSearch.FOUND) {
+                moves = root.getPath();
+                break;
+            }
+            bound = result;
+        }
+        nodes.add(root.getNodes());
+
+        while (moves == null) {
+            final AtomicBoolean found = new AtomicBoolean();
+            final AtomicInteger nextBound = new AtomicInteger(IdaStarSearch.NOT_FOUND);
+            final AtomicReference<PuzzleGrid.Direction[]> solution = new AtomicReference<>();
+            final List<RecursiveAction> tasks = new ArrayList<>(frontier.size());
+            final int iterationBound = bound;
+
+            for (byte[] prefix : frontier) {
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        if (found.get())
+                            return;
+
+                        final IdaStarSearch search = new IdaStarSearch(
+                                tiles, state.getWidth(), state.getHeight(), heuristic.get()
+                        );
+                        search.setCancelled(found);
+                        for (byte direction : prefix)
+                            search.push(direction);
+
+                        if (transpositions != null)
+                            search.setTranspositionTable(transpositions.get());
+
+                        final int result = search.search(iterationBound);
+                        nodes.add(search.getNodes());
+
+                        if (result == IdaStarSearch.FOUND) {
+                            if (found.compareAndSet(false, true))
+                                solution.set(search.getPath());
+                        } else if (result != IdaStarSearch.CANCELLED) {
+                            nextBound.accumulateAndGet(result, Math::min);
+                        }
+                    }
+                });
+            }
+
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+
+            moves = solution.get();
+            bound = nextBound.get();
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        statistics.record(nodes.sum(), elapsed);
+
+        if (Metrics.isActive())
+            Metrics.solverSearch(start, state.getWidth(), state.getHeight(), moves.length, nodes.sum(), true);
+        return new Solution(moves, nodes.sum(), elapsed);
+    }
+
+    /**
+     * Breadth first expansion of root without immediate
+     * reverts, every prefix in frontier has the same length
+     *
+     * @param tiles     Root tiles
+     * @param width     Board width
+     * @param height    Board height
+     * @return          Move prefixes of subtrees
+     */
+    private List<byte[]> createFrontier(int[] tiles, int width, int height) {
+        final int[] movableCells = IdaStarSearch.createMovableCells(width, height);
+        final int target = pool.getParallelism() * SUBTREES_PER_THREAD;
+
+        int blank = 0;
+        for (int i = tiles.length - 1; i >= 0; --i) {
+            if (tiles[i] == tiles.length - 1)
+                blank = i;
+        }
+
+        List<byte[]> frontier = new ArrayList<>();
+        List<Integer> blanks = new ArrayList<>();
+        frontier.add(new byte[0]);
+        blanks.add(blank);
+
+        for (int depth = 0; depth < MAX_FRONTIER_DEPTH && frontier.size() < target; ++depth) {
+            final List<byte[]> expanded = new ArrayList<>(frontier.size() * 3);
+            final List<Integer> expandedBlanks = new ArrayList<>(frontier.size() * 3);
+
+            for (int i = 0; i < frontier.size(); ++i) {
+                final byte[] prefix = frontier.get(i);
+                final int reverted = prefix.length == 0 ? -1 : IdaStarSearch.opposite(prefix[prefix.length - 1]);
+
+                for (int direction = 0; direction < 4; ++direction) {
+                    final int cell = movableCells[blanks.get(i) * 4 + direction];
+                    if (cell == -1 || direction == reverted)
+                        continue;
+
+                    final byte[] next = Arrays.copyOf(prefix, prefix.length + 1);
+                    next[prefix.length] = (byte) direction;
+                    expanded.add(next);
+                    expandedBlanks.add(cell);
+                }
+            }
+
+            if (expanded.isEmpty())
+                break;
+
+            frontier = expanded;
+            blanks = expandedBlanks;
+        }
+        return frontier;
+    }
+}
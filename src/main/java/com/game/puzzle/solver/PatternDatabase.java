@@ -0,0 +1,129 @@
+package com.game.puzzle.solver;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read only pattern database mapped from file. Every entry
+ * takes one nibble, it stores half of difference between
+ * pattern moves count and manhattan distance of pattern tiles,
+ * these numbers have always the same parity.
+ *
+ * Database contains only moves of pattern tiles so databases
+ * with disjoint patterns can be summed.
+ */
+public class PatternDatabase {
+    static final int MAGIC = 0x50444231;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 96;
+    static final int MAX_NIBBLE = 0xF;
+
+    private final int width;
+    private final int height;
+    private final int[] tiles;
+    private final ByteBuffer entries;
+
+    /** manhattan distance of pattern tile, indexed by pattern index * cells + cell */
+    private final int[] distances;
+
+    /**
+     * @param width     Board width
+     * @param height    Board height
+     * @param tiles     Pattern tiles
+     * @param entries   Nibble packed entries
+     */
+    private PatternDatabase(int width, int height, int[] tiles, ByteBuffer entries) {
+        final int cells = width * height;
+
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+        this.entries = entries;
+        this.distances = new int[tiles.length * cells];
+
+        for (int i = 0; i < tiles.length; ++i) {
+            for (int cell = 0; cell < cells; ++cell) {
+                distances[i * cells + cell] = Math.abs(tiles[i] % width - cell % width)
+                        + Math.abs(tiles[i] / width - cell / width);
+            }
+        }
+    }
+
+    /**
+     * Map database file into memory, it does not load it on heap
+     *
+     * @param file  Database file created by PatternDatabaseBuilder
+     * @return      Mapped database
+     * @throws IOException  Raises if file is not valid database
+     */
+    public static PatternDatabase open(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("File " + file + " is not pattern database!");
+
+            final int width = header.get();
+            final int height = header.get();
+            final int[] tiles = new int[header.get()];
+            for (int i = 0; i < tiles.length; ++i)
+                tiles[i] = header.get() & 0xFF;
+
+            final long size = (PatternRanking.size(width * height, tiles.length) + 1) / 2;
+            if (channel.size() != HEADER_SIZE + size)
+                throw new IOException("Pattern database " + file + " is truncated!");
+
+            return new PatternDatabase(
+                    width, height, tiles,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size)
+            );
+        }
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public int[] getTiles() { return tiles.clone(); }
+
+    /**
+     * @return  Count of entries
+     */
+    public long getSize() { return PatternRanking.size(width * height, tiles.length); }
+
+    /**
+     * @return  Database view with independent buffer position, it can be used by other thread
+     */
+    public PatternDatabase duplicate() {
+        return new PatternDatabase(width, height, tiles, entries.duplicate());
+    }
+
+    /**
+     * @param positions Cell index of every tile, indexed by tile number
+     * @return          Minimal moves count of pattern tiles required to order them
+     */
+    public int get(@NotNull int[] positions) {
+        final int cells = width * height;
+
+        long used = 0;
+        long rank = 0;
+        int manhattan = 0;
+
+        for (int i = 0; i < tiles.length; ++i) {
+            final int cell = positions[tiles[i]];
+            rank = rank * (cells - i) + cell - Long.bitCount(used & ((1L << cell) - 1));
+            used |= 1L << cell;
+            manhattan += distances[i * cells + cell];
+        }
+
+        final int packed = entries.get((int) (rank >>> 1));
+        return manhattan + 2 * ((packed >>> ((int) (rank & 1) << 2)) & MAX_NIBBLE);
+    }
+}
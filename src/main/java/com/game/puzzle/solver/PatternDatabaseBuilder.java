@@ -0,0 +1,383 @@
+package com.game.puzzle.solver;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.LongStream;
+
+/**
+ * Builds pattern databases using level by level breadth
+ * first search, every level is expanded in parallel.
+ *
+ * Search space contains pattern tiles and blank, moves of
+ * other tiles are free so blank can travel through all cells
+ * not occupied by pattern. Only pattern tiles moves are counted
+ * so databases of disjoint patterns are additive, stored value
+ * is the minimum over all blank positions.
+ */
+public class PatternDatabaseBuilder {
+    private static final byte UNVISITED = -1;
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int CHUNK_WORDS = 1 << 12;
+
+    /** every state takes 2 bits, frontiers of two levels alternate */
+    private static final int STATES_PER_WORD = 32;
+    private static final long MARK_MASK = 0b11;
+    private static final long UNVISITED_MARK = 0b00;
+    private static final long CLOSED_MARK = 0b01;
+    private static final long[] FRONTIER = { 0b10, 0b11 };
+    private static final long[] FRONTIER_PATTERN = { 0xAAAAAAAAAAAAAAAAL, 0xFFFFFFFFFFFFFFFFL };
+    private static final long LOW_BITS = 0x5555555555555555L;
+
+    private final int width;
+    private final int height;
+    private final int[] neighbours;
+    private final long boardMask;
+    private final long notFirstColumn;
+    private final long notLastColumn;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    /**
+     * @param size  Board size
+     */
+    public PatternDatabaseBuilder(@NotNull Dimension size) {
+        if (size.width * size.height > PatternRanking.MAX_CELLS)
+            throw new IllegalArgumentException("Pattern databases support up to " + PatternRanking.MAX_CELLS + " cells!");
+
+        this.width = size.width;
+        this.height = size.height;
+        this.neighbours = IdaStarSearch.createMovableCells(width, height);
+
+        final int cells = width * height;
+        long firstColumn = 0;
+        for (int y = 0; y < height; ++y)
+            firstColumn |= 1L << (y * width);
+
+        this.boardMask = cells == Long.SIZE ? -1L : (1L << cells) - 1;
+        this.notFirstColumn = boardMask & ~firstColumn;
+        this.notLastColumn = boardMask & ~(firstColumn << (width - 1));
+    }
+
+    /**
+     * @param pool  Pool used to expand levels
+     * @return      Fluent api object
+     */
+    public PatternDatabaseBuilder setPool(@NotNull ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Build database and write it into file
+     *
+     * @param tiles Pattern tiles
+     * @param file  Output file, it is overridden
+     * @throws IOException  Raises if file can not be written
+     */
+    public void write(@NotNull int[] tiles, @NotNull Path file) throws IOException {
+        final byte[] entries = build(tiles);
+        final ByteBuffer header = ByteBuffer.allocate(PatternDatabase.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        header.putInt(PatternDatabase.MAGIC)
+                .putInt(PatternDatabase.VERSION)
+                .put((byte) width)
+                .put((byte) height)
+                .put((byte) tiles.length);
+        for (int tile : tiles)
+            header.put((byte) tile);
+        header.clear();
+
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining())
+                channel.write(header);
+
+            final ByteBuffer data = ByteBuffer.wrap(entries);
+            while (data.hasRemaining())
+                channel.write(data);
+        }
+
+        /** never expose half written database to other processes */
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @param tiles Pattern tiles
+     * @return      Nibble packed entries in PatternDatabase format
+     */
+    public byte[] build(@NotNull int[] tiles) {
+        final int cells = width * height;
+        validatePattern(tiles);
+
+        final long size = PatternRanking.size(cells, tiles.length);
+        if (size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Pattern with " + tiles.length + " tiles is too big!");
+
+        /** state is pattern placement with blank, blank is always the last placement item */
+        final long states = PatternRanking.size(cells, tiles.length + 1);
+        if (states / STATES_PER_WORD > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Pattern with " + tiles.length + " tiles is too big!");
+
+        final byte[] depths = new byte[(int) size];
+        Arrays.fill(depths, UNVISITED);
+
+        final AtomicLongArray marks = new AtomicLongArray((int) ((states + STATES_PER_WORD - 1) / STATES_PER_WORD));
+        final int[] goal = Arrays.copyOf(tiles, tiles.length + 1);
+        goal[tiles.length] = canonicalBlank(placementMask(goal, tiles.length), cells - 1);
+
+        final long goalRank = PatternRanking.rank(goal, goal.length, cells);
+        mark(marks, goalRank, FRONTIER[0]);
+        depths[(int) (goalRank / (cells - tiles.length))] = 0;
+
+        for (int depth = 0; depth < Byte.MAX_VALUE; ++depth) {
+            if (expand(marks, depths, tiles.length, depth) == 0)
+                break;
+        }
+
+        return pack(depths, tiles);
+    }
+
+    /**
+     * @param tiles Pattern tiles
+     */
+    private void validatePattern(int[] tiles) {
+        final int cells = width * height;
+        final boolean[] used = new boolean[cells];
+
+        if (tiles.length == 0 || tiles.length >= cells - 1)
+            throw new IllegalArgumentException("Pattern has wrong tiles count!");
+
+        for (int tile : tiles) {
+            if (tile < 0 || tile >= cells - 1 || used[tile])
+                throw new IllegalArgumentException("Pattern contains wrong tile " + tile + "!");
+            used[tile] = true;
+        }
+    }
+
+    /**
+     * @param placement Cells of pattern tiles
+     * @param count     Pattern tiles count
+     * @return          Mask of cells occupied by pattern tiles
+     */
+    private static long placementMask(int[] placement, int count) {
+        long used = 0;
+        for (int i = 0; i < count; ++i)
+            used |= 1L << placement[i];
+        return used;
+    }
+
+    /**
+     * Blank moves through not pattern cells for free, all
+     * positions inside single area are the same state
+     *
+     * @param used  Mask of cells occupied by pattern tiles
+     * @param blank Blank cell
+     * @return      Mask of cells reachable by blank
+     */
+    private long blankArea(long used, int blank) {
+        final long free = boardMask & ~used;
+        long area = 1L << blank;
+
+        while (true) {
+            final long grown = (area
+                    | ((area << 1) & notFirstColumn)
+                    | ((area >>> 1) & notLastColumn)
+                    | (area << width)
+                    | (area >>> width)) & free;
+
+            if (grown == area)
+                return area;
+            area = grown;
+        }
+    }
+
+    /**
+     * @param used  Mask of cells occupied by pattern tiles
+     * @param blank Blank cell
+     * @return      The lowest cell of blank area
+     */
+    private int canonicalBlank(long used, int blank) {
+        return Long.numberOfTrailingZeros(blankArea(used, blank));
+    }
+
+    /**
+     * Set 2 bit mark of state
+     *
+     * @param marks Packed marks
+     * @param rank  State rank
+     * @param mark  New mark
+     */
+    private static void mark(AtomicLongArray marks, long rank, long mark) {
+        final int word = (int) (rank / STATES_PER_WORD);
+        final int shift = (int) (rank % STATES_PER_WORD) * 2;
+
+        long current;
+        do {
+            current = marks.get(word);
+        } while (!marks.compareAndSet(word, current, (current & ~(MARK_MASK << shift)) | (mark << shift)));
+    }
+
+    /**
+     * Mark state only if it is not visited yet
+     *
+     * @param marks Packed marks
+     * @param rank  State rank
+     * @param mark  New mark
+     * @return      True if state has not been visited before
+     */
+    private static boolean visit(AtomicLongArray marks, long rank, long mark) {
+        final int word = (int) (rank / STATES_PER_WORD);
+        final int shift = (int) (rank % STATES_PER_WORD) * 2;
+
+        while (true) {
+            final long current = marks.get(word);
+            if (((current >>> shift) & MARK_MASK) != UNVISITED_MARK)
+                return false;
+
+            if (marks.compareAndSet(word, current, current | (mark << shift)))
+                return true;
+        }
+    }
+
+    /**
+     * Visit all neighbours of states on provided depth, frontier
+     * marks alternate between levels and expanded states are closed
+     *
+     * @param marks     Packed marks of states
+     * @param depths    Depth of every pattern placement
+     * @param count     Pattern tiles count
+     * @param depth     Expanded level
+     * @return          Count of states visited first time
+     */
+    private long expand(AtomicLongArray marks, byte[] depths, int count, int depth) {
+        final int cells = width * height;
+        final int blankRadix = cells - count;
+        final long frontier = FRONTIER[depth & 1];
+        final long next = FRONTIER[(depth + 1) & 1];
+        final byte nextDepth = (byte) (depth + 1);
+        final AtomicLong visited = new AtomicLong();
+
+        pool.submit(() -> LongStream.range(0, (marks.length() + CHUNK_WORDS - 1) / CHUNK_WORDS).parallel().forEach(chunk -> {
+            final int[] placement = new int[count + 1];
+            final int end = (int) Math.min(marks.length(), (chunk + 1) * CHUNK_WORDS);
+            long found = 0;
+
+            for (int word = (int) (chunk * CHUNK_WORDS); word < end; ++word) {
+                final long value = marks.get(word);
+
+                /** fast skip of words without frontier states */
+                final long matches = ~(value ^ FRONTIER_PATTERN[depth & 1]);
+                if ((matches & (matches >>> 1) & LOW_BITS) == 0)
+                    continue;
+
+                for (int slot = 0; slot < STATES_PER_WORD; ++slot) {
+                    if (((marks.get(word) >>> (slot * 2)) & MARK_MASK) != frontier)
+                        continue;
+
+                    final long rank = (long) word * STATES_PER_WORD + slot;
+                    PatternRanking.unrank(rank, placement, count + 1, cells);
+
+                    final long used = placementMask(placement, count);
+                    final long area = blankArea(used, placement[count]);
+
+                    for (int i = 0; i < count; ++i) {
+                        final int cell = placement[i];
+
+                        for (int direction = 0; direction < 4; ++direction) {
+                            final int target = neighbours[cell * 4 + direction];
+                            if (target == -1 || (area & (1L << target)) == 0)
+                                continue;
+
+                            /** tile moves into blank area, blank takes its previous cell */
+                            placement[i] = target;
+                            placement[count] = canonicalBlank(used ^ (1L << cell) ^ (1L << target), cell);
+
+                            final long neighbour = PatternRanking.rank(placement, count + 1, cells);
+                            if (visit(marks, neighbour, next)) {
+                                final int pattern = (int) (neighbour / blankRadix);
+
+                                /** concurrent writes store the same value, no need to synchronize */
+                                if (depths[pattern] == UNVISITED)
+                                    depths[pattern] = nextDepth;
+                                ++found;
+                            }
+                        }
+                        placement[i] = cell;
+                    }
+
+                    mark(marks, rank, CLOSED_MARK);
+                }
+            }
+            visited.addAndGet(found);
+        })).join();
+
+        return visited.get();
+    }
+
+    /**
+     * @param depths    Depth of every placement
+     * @param tiles     Pattern tiles
+     * @return          Nibble packed distances above manhattan distance
+     */
+    private byte[] pack(byte[] depths, int[] tiles) {
+        final int cells = width * height;
+        final byte[] packed = new byte[(depths.length + 1) / 2];
+
+        pool.submit(() -> LongStream.range(0, (depths.length + CHUNK_SIZE - 1) / CHUNK_SIZE).parallel().forEach(chunk -> {
+            final int[] placement = new int[tiles.length];
+            final int end = (int) Math.min(depths.length, (chunk + 1) * CHUNK_SIZE);
+
+            for (int rank = (int) (chunk * CHUNK_SIZE); rank < end; ++rank) {
+                PatternRanking.unrank(rank, placement, tiles.length, cells);
+
+                int manhattan = 0;
+                for (int i = 0; i < tiles.length; ++i) {
+                    manhattan += Math.abs(tiles[i] % width - placement[i] % width)
+                            + Math.abs(tiles[i] / width - placement[i] / width);
+                }
+
+                final int nibble = depths[rank] == UNVISITED
+                        ? 0
+                        : Math.min(PatternDatabase.MAX_NIBBLE, (depths[rank] - manhattan) / 2);
+                packed[rank >>> 1] |= nibble << ((rank & 1) << 2);
+            }
+        })).join();
+
+        return packed;
+    }
+
+    /**
+     * Build all missing databases of partition
+     *
+     * @param args  Partition name and optional output directory
+     * @throws IOException  Raises if database can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        final PatternPartition partition = args.length > 0
+                ? PatternPartition.valueOf(args[0])
+                : PatternPartition.FOUR_BY_FOUR_6_6_3;
+        final Path directory = args.length > 1
+                ? Paths.get(args[1])
+                : PatternPartition.getDefaultDirectory();
+
+        final long start = System.nanoTime();
+        partition.load(directory, new PatternDatabaseBuilder(partition.getSize()));
+        System.out.printf("%s built in %s, %.1fs%n", partition, directory, (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,151 @@
+package com.game.puzzle.solver;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+
+/**
+ * Sum of disjoint pattern databases, single move
+ * changes value of only one database. On square boards
+ * the same databases are also queried with board reflected
+ * by main diagonal and the bigger sum is used.
+ */
+public class PatternDatabaseHeuristic implements Heuristic {
+    private final PatternDatabase[] databases;
+    private final int[] owners;
+    private final boolean reflected;
+
+    /** cell or tile reflected by main diagonal, goal cell of tile is its number */
+    private final int[] reflections;
+
+    private final int[] positions;
+    private final int[] values;
+    private int sum;
+
+    private final int[] reflectedPositions;
+    private final int[] reflectedValues;
+    private int reflectedSum;
+
+    /** previous values of updated databases, reverted moves restore them without lookup */
+    private int[] history = new int[128];
+    private int historySize;
+
+    /**
+     * @param databases Databases with disjoint patterns, together they have to cover every tile
+     */
+    public PatternDatabaseHeuristic(@NotNull PatternDatabase... databases) {
+        if (databases.length == 0)
+            throw new IllegalArgumentException("At least one pattern database is required!");
+
+        final int width = databases[0].getWidth();
+        final int height = databases[0].getHeight();
+        final int cells = width * height;
+
+        this.databases = new PatternDatabase[databases.length];
+        this.owners = new int[cells];
+        this.reflected = width == height;
+        this.reflections = new int[cells];
+        this.positions = new int[cells];
+        this.values = new int[databases.length];
+        this.reflectedPositions = new int[cells];
+        this.reflectedValues = new int[databases.length];
+
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < databases.length; ++i) {
+            if (databases[i].getWidth() != width || databases[i].getHeight() != height)
+                throw new IllegalArgumentException("Pattern databases have different board sizes!");
+
+            for (int tile : databases[i].getTiles()) {
+                if (owners[tile] != -1)
+                    throw new IllegalArgumentException("Tile " + tile + " belongs to multiple patterns!");
+                owners[tile] = i;
+            }
+            this.databases[i] = databases[i].duplicate();
+        }
+
+        for (int tile = cells - 2; tile >= 0; --tile) {
+            if (owners[tile] == -1)
+                throw new IllegalArgumentException("Tile " + tile + " is not covered by any pattern!");
+        }
+
+        for (int cell = cells - 1; cell >= 0; --cell)
+            reflections[cell] = (cell % width) * width + cell / width;
+    }
+
+    @Override
+    public int reset(int[] tiles, int width, int height) {
+        if (tiles.length != positions.length || databases[0].getWidth() != width)
+            throw new IllegalArgumentException("Pattern databases are built for other board size!");
+
+        for (int cell = tiles.length - 1; cell >= 0; --cell)
+            positions[tiles[cell]] = cell;
+
+        historySize = 0;
+        sum = 0;
+        for (int i = 0; i < databases.length; ++i) {
+            values[i] = databases[i].get(positions);
+            sum += values[i];
+        }
+
+        if (!reflected)
+            return sum;
+
+        for (int cell = tiles.length - 1; cell >= 0; --cell)
+            reflectedPositions[reflections[tiles[cell]]] = reflections[cell];
+
+        reflectedSum = 0;
+        for (int i = 0; i < databases.length; ++i) {
+            reflectedValues[i] = databases[i].get(reflectedPositions);
+            reflectedSum += reflectedValues[i];
+        }
+        return Math.max(sum, reflectedSum);
+    }
+
+    @Override
+    public int update(int[] tiles, int tile, int from, int to) {
+        positions[tile] = to;
+
+        final int owner = owners[tile];
+        final int value = databases[owner].get(positions);
+
+        if (historySize + 2 > history.length)
+            history = Arrays.copyOf(history, history.length * 2);
+
+        history[historySize++] = values[owner];
+        sum += value - values[owner];
+        values[owner] = value;
+
+        if (!reflected)
+            return sum;
+
+        final int reflectedTile = reflections[tile];
+        reflectedPositions[reflectedTile] = reflections[to];
+
+        final int reflectedOwner = owners[reflectedTile];
+        final int reflectedValue = databases[reflectedOwner].get(reflectedPositions);
+
+        history[historySize++] = reflectedValues[reflectedOwner];
+        reflectedSum += reflectedValue - reflectedValues[reflectedOwner];
+        reflectedValues[reflectedOwner] = reflectedValue;
+        return Math.max(sum, reflectedSum);
+    }
+
+    @Override
+    public void revert(int[] tiles, int tile, int from, int to) {
+        if (reflected) {
+            final int reflectedTile = reflections[tile];
+            final int reflectedOwner = owners[reflectedTile];
+            final int reflectedValue = history[--historySize];
+
+            reflectedPositions[reflectedTile] = reflections[from];
+            reflectedSum += reflectedValue - reflectedValues[reflectedOwner];
+            reflectedValues[reflectedOwner] = reflectedValue;
+        }
+
+        final int owner = owners[tile];
+        final int value = history[--historySize];
+
+        positions[tile] = from;
+        sum += value - values[owner];
+        values[owner] = value;
+    }
+}
@@ -0,0 +1,162 @@
+package com.game.puzzle.solver;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Supplier;
+
+/**
+ * Predefined splits of board tiles into disjoint patterns,
+ * tiles are numbered row by row starting from 0
+ */
+public enum PatternPartition {
+    /**
+     *  A A B B
+     *  A A B B
+     *  A C B B
+     *  A C C .
+     */
+    FOUR_BY_FOUR_6_6_3(
+            4, 4,
+            new int[] { 0, 1, 4, 5, 8, 12 },
+            new int[] { 2, 3, 6, 7, 10, 11 },
+            new int[] { 9, 13, 14 }
+    ),
+
+    /**
+     *  A A A A
+     *  A A A A
+     *  B B B B
+     *  B B B .
+     */
+    FOUR_BY_FOUR_7_8(
+            4, 4,
+            new int[] { 0, 1, 2, 3, 4, 5, 6, 7 },
+            new int[] { 8, 9, 10, 11, 12, 13, 14 }
+    ),
+
+    /**
+     *  A A A B B
+     *  A A A B B
+     *  C C D B B
+     *  C C D D D
+     *  C C D D .
+     */
+    FIVE_BY_FIVE_6_6_6_6(
+            5, 5,
+            new int[] { 0, 1, 2, 5, 6, 7 },
+            new int[] { 3, 4, 8, 9, 13, 14 },
+            new int[] { 10, 11, 15, 16, 20, 21 },
+            new int[] { 12, 17, 18, 19, 22, 23 }
+    );
+
+    public final int width;
+    public final int height;
+    private final int[][] patterns;
+
+    PatternPartition(int width, int height, int[]... patterns) {
+        this.width = width;
+        this.height = height;
+        this.patterns = patterns;
+    }
+
+    public Dimension getSize() { return new Dimension(width, height); }
+
+    /**
+     * @return  Copy of patterns tiles
+     */
+    public int[][] getPatterns() {
+        final int[][] copy = new int[patterns.length][];
+        for (int i = 0; i < patterns.length; ++i)
+            copy[i] = patterns[i].clone();
+        return copy;
+    }
+
+    /**
+     * @return  Default directory where databases are stored
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".puzzle", "pdb");
+    }
+
+    /**
+     * @param size  Board size
+     * @return      Default partition for board, null if there is no such partition
+     */
+    public static PatternPartition forSize(@NotNull Dimension size) {
+        if (size.width == 4 && size.height == 4)
+            return FOUR_BY_FOUR_6_6_3;
+
+        if (size.width == 5 && size.height == 5)
+            return FIVE_BY_FIVE_6_6_6_6;
+
+        return null;
+    }
+
+    /**
+     * @param directory Databases directory
+     * @param index     Pattern index
+     * @return          Database file path
+     */
+    public Path getFile(@NotNull Path directory, int index) {
+        final StringBuilder name = new StringBuilder()
+                .append(width).append('x').append(height);
+
+        for (int tile : patterns[index])
+            name.append('-').append(tile);
+
+        return directory.resolve(name.append(".pdb").toString());
+    }
+
+    /**
+     * Map databases of all patterns, missing ones are built,
+     * building takes from seconds to minutes and up to GBs of memory
+     *
+     * @param directory Databases directory
+     * @param builder   Builder used for missing databases
+     * @return          Mapped databases
+     * @throws IOException  Raises if database can not be read or written
+     */
+    public PatternDatabase[] load(@NotNull Path directory, @NotNull PatternDatabaseBuilder builder) throws IOException {
+        final PatternDatabase[] databases = new PatternDatabase[patterns.length];
+
+        for (int i = 0; i < patterns.length; ++i) {
+            final Path file = getFile(directory, i);
+            if (!Files.exists(file))
+                builder.write(patterns[i], file);
+
+            databases[i] = PatternDatabase.open(file);
+        }
+        return databases;
+    }
+
+    /**
+     * Map databases that are already built, it never builds missing one
+     *
+     * @param directory Databases directory
+     * @return          Mapped databases, null if any of them has not been built yet
+     * @throws IOException  Raises if database can not be read
+     */
+    public PatternDatabase[] load(@NotNull Path directory) throws IOException {
+        for (int i = 0; i < patterns.length; ++i)
+            if (!Files.exists(getFile(directory, i)))
+                return null;
+
+        final PatternDatabase[] databases = new PatternDatabase[patterns.length];
+        for (int i = 0; i < patterns.length; ++i)
+            databases[i] = PatternDatabase.open(getFile(directory, i));
+
+        return databases;
+    }
+
+    /**
+     * @param databases Loaded databases of partition
+     * @return          Factory of heuristics used by solvers
+     */
+    public static Supplier<Heuristic> heuristic(@NotNull PatternDatabase... databases) {
+        return () -> new PatternDatabaseHeuristic(databases);
+    }
+}
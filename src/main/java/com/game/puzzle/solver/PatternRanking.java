@@ -0,0 +1,70 @@
+package com.game.puzzle.solver;
+
+/**
+ * Perfect hash of pattern tiles placement, k tiles placed
+ * on n cells are ranked into [0, n! / (n - k)!) range using
+ * mixed radix of cells left free by previous tiles
+ */
+final class PatternRanking {
+    static final int MAX_CELLS = 64;
+
+    private PatternRanking() {}
+
+    /**
+     * @param cells Total board cells
+     * @param count Pattern tiles count
+     * @return      Count of all possible placements
+     */
+    static long size(int cells, int count) {
+        long size = 1;
+        for (int i = 0; i < count; ++i)
+            size *= cells - i;
+        return size;
+    }
+
+    /**
+     * @param placement Cells of pattern tiles
+     * @param count     Pattern tiles count
+     * @param cells     Total board cells
+     * @return          Placement rank
+     */
+    static long rank(int[] placement, int count, int cells) {
+        long used = 0;
+        long rank = 0;
+
+        for (int i = 0; i < count; ++i) {
+            final int cell = placement[i];
+            final int free = cell - Long.bitCount(used & ((1L << cell) - 1));
+
+            rank = rank * (cells - i) + free;
+            used |= 1L << cell;
+        }
+        return rank;
+    }
+
+    /**
+     * @param rank      Placement rank
+     * @param placement Output cells of pattern tiles
+     * @param count     Pattern tiles count
+     * @param cells     Total board cells
+     */
+    static void unrank(long rank, int[] placement, int count, int cells) {
+        for (int i = count - 1; i >= 0; --i) {
+            final int radix = cells - i;
+            placement[i] = (int) (rank % radix);
+            rank /= radix;
+        }
+
+        /** convert free cell numbers into cells indices */
+        long used = 0;
+        for (int i = 0; i < count; ++i) {
+            long free = ~used;
+            for (int skip = placement[i]; skip > 0; --skip)
+                free &= free - 1;
+
+            final int cell = Long.numberOfTrailingZeros(free);
+            placement[i] = cell;
+            used |= 1L << cell;
+        }
+    }
+}
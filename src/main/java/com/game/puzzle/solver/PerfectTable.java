@@ -0,0 +1,345 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.metrics.Metrics;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Read only table of exact distance to ordered board of every
+ * solvable board, mapped from file built by PerfectTableBuilder.
+ * Every entry takes one byte, so hint, solution and difficulty
+ * of small boards are table lookups instead of search.
+ *
+ * Board is ranked by placement of blank and tiles 0..(cells - 4),
+ * cells of last two tiles follow from solvability, so ranks of
+ * solvable boards fill [0, cells! / 2) range without gaps.
+ */
+public class PerfectTable {
+    static final int MAGIC = 0x50505431;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    /** 2x5 board has 1 814 400 states, 3x4 would have 239 500 800 */
+    public static final int MAX_CELLS = 10;
+
+    private static final Map<Dimension, PerfectTable> TABLES = new ConcurrentHashMap<>();
+    private static final Map<Dimension, CompletableFuture<PerfectTable>> BUILDS = new ConcurrentHashMap<>();
+
+    private final int width;
+    private final int height;
+    private final ByteBuffer entries;
+
+    /** count of boards with given distance */
+    private final int[] counts;
+
+    /**
+     * @param width     Board width
+     * @param height    Board height
+     * @param entries   Distance of every rank
+     * @param maximum   Maximal distance stored in table
+     */
+    private PerfectTable(int width, int height, ByteBuffer entries, int maximum) {
+        this.width = width;
+        this.height = height;
+        this.entries = entries;
+        this.counts = new int[maximum + 1];
+
+        for (int i = entries.limit() - 1; i >= 0; --i)
+            ++counts[entries.get(i) & 0xFF];
+    }
+
+    /**
+     * @param size  Board size
+     * @return      True if table of board fits into MAX_CELLS, single row boards are not ranked
+     */
+    public static boolean isSupported(@NotNull Dimension size) {
+        return size.width > 1 && size.height > 1 && size.width * size.height <= MAX_CELLS;
+    }
+
+    /**
+     * @param cells Total board cells
+     * @return      Count of solvable boards
+     */
+    static long size(int cells) {
+        return PatternRanking.size(cells, cells - 2);
+    }
+
+    /**
+     * @return  Default directory where tables are stored
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".puzzle", "tables");
+    }
+
+    /**
+     * @param directory Tables directory
+     * @param size      Board size
+     * @return          Table file path
+     */
+    public static Path getFile(@NotNull Path directory, @NotNull Dimension size) {
+        return directory.resolve(size.width + "x" + size.height + ".ppt");
+    }
+
+    /**
+     * Map table file into memory, it does not load it on heap
+     *
+     * @param file  Table file created by PerfectTableBuilder
+     * @return      Mapped table
+     * @throws IOException  Raises if file is not valid table
+     */
+    public static PerfectTable open(@NotNull Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0);
+            header.flip();
+
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION)
+                throw new IOException("File " + file + " is not perfect table!");
+
+            final int width = header.get();
+            final int height = header.get();
+            final int maximum = header.get() & 0xFF;
+            if (!PerfectTable.isSupported(new Dimension(width, height)))
+                throw new IOException("Perfect table " + file + " has wrong size!");
+
+            final long size = PerfectTable.size(width * height);
+            if (channel.size() != HEADER_SIZE + size)
+                throw new IOException("Perfect table " + file + " is truncated!");
+
+            return new PerfectTable(
+                    width, height,
+                    channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, size),
+                    maximum
+            );
+        }
+    }
+
+    /**
+     * Map table of board, missing one is built
+     *
+     * @param directory Tables directory
+     * @param size      Board size
+     * @return          Mapped table
+     * @throws IOException  Raises if table can not be read or written
+     */
+    public static PerfectTable load(@NotNull Path directory, @NotNull Dimension size) throws IOException {
+        final Path file = PerfectTable.getFile(directory, size);
+        if (!Files.exists(file))
+            new PerfectTableBuilder(size).write(file);
+
+        return PerfectTable.open(file);
+    }
+
+    /**
+     * Table shared by whole application, it is built in default directory
+     * if it does not exist. Building takes up to a second, latency sensitive
+     * threads should use find and buildAsync instead.
+     *
+     * @param size  Board size
+     * @return      Table of board, null if board is too big or table can not be loaded
+     */
+    public static PerfectTable forSize(@NotNull Dimension size) {
+        if (!PerfectTable.isSupported(size))
+            return null;
+
+        return TABLES.computeIfAbsent(new Dimension(size), key -> {
+            try {
+                return PerfectTable.load(PerfectTable.getDefaultDirectory(), key);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Shared table that is already built, it never builds missing one
+     *
+     * @param size  Board size
+     * @return      Table of board, null if it has not been built yet
+     */
+    public static PerfectTable find(@NotNull Dimension size) {
+        if (!PerfectTable.isSupported(size))
+            return null;
+
+        final PerfectTable table = TABLES.get(size);
+        if (table != null)
+            return table;
+
+        /** builder moves finished file into place, existing file is only mapped */
+        if (!Files.exists(PerfectTable.getFile(PerfectTable.getDefaultDirectory(), size)))
+            return null;
+
+        return PerfectTable.forSize(size);
+    }
+
+    /**
+     * Build missing shared table in background, concurrent
+     * calls for the same size share single build
+     *
+     * @param size  Board size
+     * @return      Future table, completed with null if board is too big or table can not be built
+     */
+    public static CompletableFuture<PerfectTable> buildAsync(@NotNull Dimension size) {
+        final PerfectTable table = PerfectTable.find(size);
+        if (table != null || !PerfectTable.isSupported(size))
+            return CompletableFuture.completedFuture(table);
+
+        return BUILDS.computeIfAbsent(
+                new Dimension(size),
+                key -> CompletableFuture.supplyAsync(() -> PerfectTable.forSize(key))
+        );
+    }
+
+    public int getWidth() { return width; }
+
+    public int getHeight() { return height; }
+
+    public Dimension getSize() { return new Dimension(width, height); }
+
+    /**
+     * @return  Count of solvable boards
+     */
+    public int getStateCount() { return entries.limit(); }
+
+    /**
+     * @return  Count of moves of the hardest boards
+     */
+    public int getMaxDistance() { return counts.length - 1; }
+
+    /**
+     * @param distance  Count of moves
+     * @return          Count of boards that need exactly provided count of moves
+     */
+    public int getCount(int distance) {
+        return distance < 0 || distance >= counts.length ? 0 : counts[distance];
+    }
+
+    /**
+     * @param state Board
+     * @return      True if board has the same size as table
+     */
+    public boolean matches(@NotNull BoardState state) {
+        return state.getWidth() == width && state.getHeight() == height;
+    }
+
+    /**
+     * @param state Board with the same size as table
+     * @return      Count of moves of the shortest solution, -1 if board is not solvable
+     */
+    public int getDistance(@NotNull BoardState state) {
+        if (!matches(state))
+            throw new IllegalArgumentException("Board size does not match perfect table!");
+
+        if (!state.isSolvable())
+            return -1;
+
+        return entries.get(PerfectTable.rank(state)) & 0xFF;
+    }
+
+    /**
+     * @param state Board with the same size as table
+     * @return      First move of the shortest solution, null if board is ordered or not solvable
+     */
+    public PuzzleGrid.Direction getMove(@NotNull BoardState state) {
+        final int distance = getDistance(state);
+        if (distance <= 0)
+            return null;
+
+        return next(state.copy(), distance);
+    }
+
+    /**
+     * @param state Board with the same size as table
+     * @return      Share of solvable boards closer to ordered one, 0 for the easiest, near 1 for the hardest
+     */
+    public double getDifficulty(@NotNull BoardState state) {
+        final int distance = getDistance(state);
+        if (distance < 0)
+            throw new IllegalArgumentException("Puzzle is not solvable!");
+
+        long closer = 0;
+        for (int i = 0; i < distance; ++i)
+            closer += counts[i];
+        return (double) closer / entries.limit();
+    }
+
+    /**
+     * Walk down the table, every move is single lookup
+     * of every neighbour so nodes are count of lookups
+     *
+     * @param state Board with the same size as table, it is not modified
+     * @return      Optimal moves
+     */
+    public Solution solve(@NotNull BoardState state) {
+        final long start = System.nanoTime();
+        final int distance = getDistance(state);
+        if (distance < 0)
+            throw new IllegalArgumentException("Puzzle is not solvable!");
+
+        final BoardState probe = state.copy();
+        final PuzzleGrid.Direction[] moves = new PuzzleGrid.Direction[distance];
+        long nodes = 1;
+
+        for (int i = 0; i < distance; ++i) {
+            moves[i] = next(probe, distance - i);
+            probe.move(moves[i]);
+            nodes += PuzzleGrid.Direction.values().length;
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        if (Metrics.isActive())
+            Metrics.solverSearch(start, width, height, distance, nodes, false);
+        return new Solution(moves, nodes, elapsed);
+    }
+
+    /**
+     * @param state     Solvable board, it is restored after lookup
+     * @param distance  Distance of board
+     * @return          Move to neighbour that is one move closer
+     */
+    private PuzzleGrid.Direction next(BoardState state, int distance) {
+        for (PuzzleGrid.Direction direction : PuzzleGrid.Direction.values()) {
+            if (!state.move(direction))
+                continue;
+
+            final int value = entries.get(PerfectTable.rank(state)) & 0xFF;
+            state.move(direction.opposite());
+
+            if (value == distance - 1)
+                return direction;
+        }
+        throw new IllegalStateException("Perfect table is corrupted!");
+    }
+
+    /**
+     * @param state Solvable board
+     * @return      Rank of board
+     */
+    static int rank(BoardState state) {
+        final int cells = state.getCellCount();
+        final int[] placement = new int[cells - 2];
+
+        placement[0] = state.getBlank();
+        for (int cell = 0; cell < cells; ++cell) {
+            final int tile = state.get(cell);
+            if (tile < cells - 3)
+                placement[tile + 1] = cell;
+        }
+        return (int) PatternRanking.rank(placement, placement.length, cells);
+    }
+}
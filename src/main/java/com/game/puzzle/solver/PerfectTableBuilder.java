@@ -0,0 +1,172 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Builds perfect tables using breadth first search of whole
+ * state space from ordered board. Boards are stored only as
+ * ranks, neighbour of board is ranked by moving blank in
+ * placement without restoring tiles of the last two cells.
+ */
+public class PerfectTableBuilder {
+    private static final int UNVISITED = 0xFF;
+    private static final int DIRECTIONS = PuzzleGrid.Direction.values().length;
+
+    private final int width;
+    private final int height;
+    private final int[] neighbours;
+
+    /**
+     * @param size  Board size
+     */
+    public PerfectTableBuilder(@NotNull Dimension size) {
+        if (!PerfectTable.isSupported(size))
+            throw new IllegalArgumentException("Perfect tables support boards from 2x2 up to " + PerfectTable.MAX_CELLS + " cells!");
+
+        this.width = size.width;
+        this.height = size.height;
+        this.neighbours = IdaStarSearch.createMovableCells(width, height);
+    }
+
+    /**
+     * Build table and write it into file
+     *
+     * @param file  Output file, it is overridden
+     * @throws IOException  Raises if file can not be written
+     */
+    public void write(@NotNull Path file) throws IOException {
+        final byte[] entries = build();
+
+        int maximum = 0;
+        for (byte entry : entries)
+            maximum = Math.max(maximum, entry & 0xFF);
+
+        final ByteBuffer header = ByteBuffer.allocate(PerfectTable.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(PerfectTable.MAGIC)
+                .putInt(PerfectTable.VERSION)
+                .put((byte) width)
+                .put((byte) height)
+                .put((byte) maximum);
+        header.clear();
+
+        final Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+
+        final Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining())
+                channel.write(header);
+
+            final ByteBuffer data = ByteBuffer.wrap(entries);
+            while (data.hasRemaining())
+                channel.write(data);
+        }
+
+        /** never expose half written table to other processes */
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return  Distance of every solvable board indexed by its rank
+     */
+    public byte[] build() {
+        final int cells = width * height;
+        final int count = cells - 2;
+        final int size = (int) PerfectTable.size(cells);
+
+        final byte[] entries = new byte[size];
+        Arrays.fill(entries, (byte) UNVISITED);
+
+        /** placement of blank and tiles 0..(cells - 4), ordered board is identity */
+        final int[] placement = new int[count];
+        final int[] owners = new int[cells];
+        placement[0] = cells - 1;
+        for (int i = 1; i < count; ++i)
+            placement[i] = i - 1;
+
+        /** every rank is queued once, so queue never wraps */
+        final int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+
+        final int root = (int) PatternRanking.rank(placement, count, cells);
+        entries[root] = 0;
+        queue[tail++] = root;
+
+        while (head < tail) {
+            final int rank = queue[head++];
+            final int distance = entries[rank] & 0xFF;
+
+            PatternRanking.unrank(rank, placement, count, cells);
+            Arrays.fill(owners, -1);
+            for (int i = 1; i < count; ++i)
+                owners[placement[i]] = i;
+
+            final int blank = placement[0];
+            for (int i = blank * DIRECTIONS; i < (blank + 1) * DIRECTIONS; ++i) {
+                final int cell = neighbours[i];
+                if (cell == -1)
+                    continue;
+
+                /** tile of cell moves into blank, last two tiles are not tracked */
+                final int owner = owners[cell];
+                placement[0] = cell;
+                if (owner != -1)
+                    placement[owner] = blank;
+
+                final int next = (int) PatternRanking.rank(placement, count, cells);
+                if (entries[next] == (byte) UNVISITED) {
+                    entries[next] = (byte) (distance + 1);
+                    queue[tail++] = next;
+                }
+
+                placement[0] = blank;
+                if (owner != -1)
+                    placement[owner] = cell;
+            }
+        }
+
+        if (tail != size)
+            throw new IllegalStateException("Only " + tail + " of " + size + " boards are reachable!");
+        return entries;
+    }
+
+    /**
+     * Build table of board in provided directory
+     *
+     * @param args  Board size, e.g. 3x3, and optional output directory
+     * @throws IOException  Raises if table can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        final String[] sizeParts = (args.length > 0 ? args[0] : "3x3").split("x");
+        final Dimension size = new Dimension(Integer.parseInt(sizeParts[0]), Integer.parseInt(sizeParts[1]));
+        final Path directory = args.length > 1
+                ? Paths.get(args[1])
+                : PerfectTable.getDefaultDirectory();
+
+        final long start = System.nanoTime();
+        final Path file = PerfectTable.getFile(directory, size);
+        new PerfectTableBuilder(size).write(file);
+
+        final PerfectTable table = PerfectTable.open(file);
+        System.out.printf(
+                "%dx%d built in %s, %d boards, %d moves at most, %.1fs%n",
+                size.width, size.height, file, table.getStateCount(), table.getMaxDistance(),
+                (System.nanoTime() - start) / 1e9
+        );
+    }
+}
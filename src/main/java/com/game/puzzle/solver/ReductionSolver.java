@@ -0,0 +1,513 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.metrics.Metrics;
+
+import javax.validation.constraints.NotNull;
+import java.awt.Dimension;
+import java.util.Arrays;
+
+/**
+ * Suboptimal solver of large boards. Top row or left column of
+ * unsolved region, whichever is longer, is placed tile by tile and
+ * locked until region fits perfect table (the last 3x3 of square
+ * boards), which finishes it with the shortest moves.
+ *
+ * Every tile travels along shortest path and blank is walked in
+ * front of it around locked cells, so time and moves grow with
+ * cells count times board side. Last two tiles of line are placed
+ * together by search of all placements of them and blank inside
+ * 2x3 window at the end of line, this never gets stuck in corner.
+ */
+public class ReductionSolver {
+    private static final PuzzleGrid.Direction[] DIRECTIONS = PuzzleGrid.Direction.values();
+
+    /** depth of window of last two tiles, counted from the line */
+    private static final int WINDOW_DEPTH = 3;
+    private static final int WINDOW_CELLS = 2 * WINDOW_DEPTH;
+
+    private final SolverStatistics statistics = new SolverStatistics();
+
+    public SolverStatistics getStatistics() { return statistics; }
+
+    /**
+     * @param grid  Solved grid, it is not modified
+     * @return      Moves that order board
+     */
+    public Solution solve(@NotNull PuzzleGrid grid) {
+        return solve(grid.getState());
+    }
+
+    /**
+     * @param state Solved board, it is not modified
+     * @return      Moves that order board, nodes are cells visited by path searches
+     */
+    public Solution solve(@NotNull BoardState state) {
+        if (!state.isSolvable())
+            throw new IllegalArgumentException("Puzzle is not solvable!");
+
+        final long start = System.nanoTime();
+        final Reduction reduction = new Reduction(state.copy());
+        reduction.run();
+
+        final long elapsed = System.nanoTime() - start;
+        final PuzzleGrid.Direction[] moves = reduction.getMoves();
+        statistics.record(reduction.nodes, elapsed);
+
+        if (Metrics.isActive())
+            Metrics.solverSearch(start, state.getWidth(), state.getHeight(), moves.length, reduction.nodes, false);
+        return new Solution(moves, reduction.nodes, elapsed);
+    }
+
+    /**
+     * State of single solve
+     */
+    private static final class Reduction {
+        private final BoardState state;
+        private final int width;
+        private final int height;
+        private final boolean[] locked;
+
+        /** cell of every tile, indexed by tile number */
+        private final int[] positions;
+
+        /** path search buffers, cell is visited if its stamp is current one */
+        private int[] queue;
+        private int[] deferred;
+        private final int[] parents;
+        private final int[] distances;
+        private final int[] stamps;
+        private int stamp = 0;
+
+        private PuzzleGrid.Direction[] moves = new PuzzleGrid.Direction[64];
+        private int length = 0;
+        private long nodes = 0;
+
+        /** unsolved region, its bottom right corner is bottom right corner of board */
+        private int left = 0;
+        private int top = 0;
+
+        Reduction(BoardState state) {
+            final int cells = state.getCellCount();
+
+            this.state = state;
+            this.width = state.getWidth();
+            this.height = state.getHeight();
+            this.locked = new boolean[cells];
+            this.positions = new int[cells];
+            this.queue = new int[cells];
+            this.deferred = new int[cells];
+            this.parents = new int[cells];
+            this.distances = new int[cells];
+            this.stamps = new int[cells];
+
+            for (int cell = 0; cell < cells; ++cell)
+                positions[state.get(cell)] = cell;
+        }
+
+        PuzzleGrid.Direction[] getMoves() {
+            return Arrays.copyOf(moves, length);
+        }
+
+        void run() {
+            if (width < 2 || height < 2) {
+                if (!state.isOrdered())
+                    throw new IllegalArgumentException("Board has to be at least 2x2!");
+                return;
+            }
+
+            while (!PerfectTable.isSupported(new Dimension(width - left, height - top))) {
+                if (height - top >= width - left)
+                    placeLine(true);
+                else
+                    placeLine(false);
+            }
+            finish();
+        }
+
+        /**
+         * @param row       True if top row of region is placed, left column otherwise
+         * @param along     Index along the line
+         * @param depth     Distance from the line inside region
+         * @return          Cell index
+         */
+        private int cell(boolean row, int along, int depth) {
+            return row
+                    ? (top + depth) * width + along
+                    : along * width + left + depth;
+        }
+
+        /**
+         * Place and lock top row or left column of region
+         *
+         * @param row   True if top row is placed
+         */
+        private void placeLine(boolean row) {
+            final int first = row ? left : top;
+            final int end = row ? width : height;
+
+            for (int along = first; along < end - 2; ++along) {
+                final int goal = cell(row, along, 0);
+                moveTile(goal, goal);
+                locked[goal] = true;
+            }
+            placePair(row, end - 2);
+
+            if (row)
+                ++top;
+            else
+                ++left;
+        }
+
+        /**
+         * Place the last two tiles of line using window
+         * of two cells wide and WINDOW_DEPTH cells deep
+         *
+         * @param row   True if line is row
+         * @param along Index of the first of two tiles along line
+         */
+        private void placePair(boolean row, int along) {
+            final int first = cell(row, along, 0);
+            final int second = cell(row, along + 1, 0);
+            final int[] window = new int[WINDOW_CELLS];
+            for (int depth = 0; depth < WINDOW_DEPTH; ++depth) {
+                window[2 * depth] = cell(row, along, depth);
+                window[2 * depth + 1] = cell(row, along + 1, depth);
+            }
+
+            if (state.get(first) == first && state.get(second) == second) {
+                locked[first] = locked[second] = true;
+                return;
+            }
+
+            /** bring both tiles into window, the first one is parked on its goal */
+            moveTile(first, first);
+            if (indexOf(window, positions[second]) == -1) {
+                locked[first] = true;
+                moveTile(second, window[WINDOW_CELLS - 1]);
+                locked[first] = false;
+            }
+
+            locked[positions[first]] = locked[positions[second]] = true;
+            walkBlank(window);
+            locked[positions[first]] = locked[positions[second]] = false;
+
+            solveWindow(window, first, second);
+            locked[first] = locked[second] = true;
+        }
+
+        /**
+         * Search of all placements of two tiles and blank
+         * inside window, other tiles of window are not tracked
+         *
+         * @param window    Window cells, row by row of depth
+         * @param first     Tile placed in window[0]
+         * @param second    Tile placed in window[1]
+         */
+        private void solveWindow(int[] window, int first, int second) {
+            final int states = WINDOW_CELLS * WINDOW_CELLS * WINDOW_CELLS;
+            final int[] previous = new int[states];
+            final int[] blanks = new int[states];
+            final int[] order = new int[states];
+            Arrays.fill(previous, -2);
+
+            final int root = encode(
+                    indexOf(window, positions[first]),
+                    indexOf(window, positions[second]),
+                    indexOf(window, state.getBlank())
+            );
+            previous[root] = -1;
+            order[0] = root;
+
+            int found = -1;
+            for (int head = 0, tail = 1; head < tail && found == -1; ++head) {
+                final int key = order[head];
+                final int a = key / (WINDOW_CELLS * WINDOW_CELLS);
+                final int b = key / WINDOW_CELLS % WINDOW_CELLS;
+                final int blank = key % WINDOW_CELLS;
+                ++nodes;
+
+                if (a == 0 && b == 1) {
+                    found = key;
+                    break;
+                }
+
+                for (int next = 0; next < WINDOW_CELLS; ++next) {
+                    if (!adjacent(blank, next))
+                        continue;
+
+                    final int child = encode(a == next ? blank : a, b == next ? blank : b, next);
+                    if (previous[child] == -2) {
+                        previous[child] = key;
+                        blanks[child] = next;
+                        order[tail++] = child;
+                    }
+                }
+            }
+
+            if (found == -1)
+                throw new IllegalStateException("Tiles " + first + " and " + second + " can not be placed!");
+
+            /** path is stored backwards as blank cells */
+            int count = 0;
+            for (int key = found; previous[key] != -1; key = previous[key])
+                order[count++] = window[blanks[key]];
+
+            while (count > 0)
+                moveBlank(order[--count]);
+        }
+
+        /**
+         * @param a     Window index of the first tile
+         * @param b     Window index of the second tile
+         * @param blank Window index of blank
+         * @return      Key of window placement
+         */
+        private static int encode(int a, int b, int blank) {
+            return (a * WINDOW_CELLS + b) * WINDOW_CELLS + blank;
+        }
+
+        /**
+         * @param from  Window index
+         * @param to    Window index
+         * @return      True if cells are neighbours, window is two cells wide
+         */
+        private static boolean adjacent(int from, int to) {
+            return Math.abs(from - to) == 2 || (from / 2 == to / 2 && from != to);
+        }
+
+        /**
+         * Move tile along shortest path that avoids locked cells,
+         * blank is walked in front of tile before every step
+         *
+         * @param tile  Tile number
+         * @param goal  Target cell
+         */
+        private void moveTile(int tile, int goal) {
+            if (positions[tile] == goal)
+                return;
+
+            /** path follows parents from tile to goal, blank walks below overwrite search buffers */
+            if (search(goal, new int[] { positions[tile] }) == -1)
+                throw new IllegalStateException("Tile " + tile + " can not reach its cell!");
+
+            final int[] path = new int[distances[positions[tile]]];
+            for (int i = 0, cell = positions[tile]; i < path.length; ++i) {
+                cell = parents[cell];
+                path[i] = cell;
+            }
+
+            for (int next : path) {
+                final int cell = positions[tile];
+
+                locked[cell] = true;
+                walkBlank(next);
+                locked[cell] = false;
+                moveBlank(cell);
+            }
+        }
+
+        /**
+         * @param target    Cell to which blank is walked around locked cells
+         */
+        private void walkBlank(int target) {
+            walkBlank(new int[] { target });
+        }
+
+        /**
+         * @param targets   Cells, blank is walked to the nearest one around locked cells
+         */
+        private void walkBlank(int[] targets) {
+            final int blank = state.getBlank();
+            if (indexOf(targets, blank) != -1)
+                return;
+
+            final int reached = search(blank, targets);
+            if (reached == -1)
+                throw new IllegalStateException("Blank can not reach cell " + targets[0] + "!");
+
+            /** path is stored backwards in queue, it is not needed anymore */
+            int count = 0;
+            for (int cell = reached; cell != blank; cell = parents[cell])
+                queue[count++] = cell;
+
+            while (count > 0)
+                moveBlank(queue[--count]);
+        }
+
+        /**
+         * A* search from cell over unlocked cells with manhattan distance
+         * to the nearest target. Every move raises total cost of cell by
+         * at most two, so cells with cost of bound are expanded from one
+         * stack, others wait on second one until bound is raised. Only
+         * cells near shortest path are visited.
+         *
+         * @param from      Start cell, it may be locked
+         * @param targets   Search stops when one of cells is reached
+         * @return          Reached target, -1 if no target can be reached
+         */
+        private int search(int from, int[] targets) {
+            ++stamp;
+            int bound = estimate(from, targets);
+            int size = 0;
+            int deferredSize = 0;
+
+            stamps[from] = stamp;
+            distances[from] = 0;
+            queue[size++] = from;
+
+            while (size > 0) {
+                final int cell = queue[--size];
+                final int cost = distances[cell] + estimate(cell, targets);
+
+                /** cell with lower cost has been pushed again and expanded already */
+                if (cost > bound)
+                    deferred = push(deferred, deferredSize++, cell);
+                else if (cost == bound) {
+                    ++nodes;
+                    if (cell != from && indexOf(targets, cell) != -1)
+                        return cell;
+
+                    for (PuzzleGrid.Direction direction : DIRECTIONS) {
+                        final int neighbour = neighbour(cell, direction);
+                        final int distance = distances[cell] + 1;
+                        if (neighbour == -1 || locked[neighbour]
+                                || (stamps[neighbour] == stamp && distances[neighbour] <= distance))
+                            continue;
+
+                        stamps[neighbour] = stamp;
+                        distances[neighbour] = distance;
+                        parents[neighbour] = cell;
+
+                        if (distance + estimate(neighbour, targets) == bound)
+                            queue = push(queue, size++, neighbour);
+                        else
+                            deferred = push(deferred, deferredSize++, neighbour);
+                    }
+                }
+
+                if (size == 0 && deferredSize > 0) {
+                    final int[] swap = queue;
+                    queue = deferred;
+                    deferred = swap;
+                    size = deferredSize;
+                    deferredSize = 0;
+                    ++bound;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @param stack Stack of cells
+         * @param size  Count of cells on stack
+         * @param cell  Pushed cell
+         * @return      Stack, grown if it was full
+         */
+        private static int[] push(int[] stack, int size, int cell) {
+            if (size == stack.length)
+                stack = Arrays.copyOf(stack, size * 2);
+
+            stack[size] = cell;
+            return stack;
+        }
+
+        /**
+         * @param cell      Cell index
+         * @param targets   Target cells
+         * @return          Manhattan distance to the nearest target
+         */
+        private int estimate(int cell, int[] targets) {
+            int estimate = Integer.MAX_VALUE;
+            for (int target : targets) {
+                estimate = Math.min(
+                        estimate,
+                        Math.abs(cell % width - target % width) + Math.abs(cell / width - target / width)
+                );
+            }
+            return estimate;
+        }
+
+        /**
+         * @param cell      Cell index
+         * @param direction Direction of neighbour
+         * @return          Neighbour cell, -1 if it is outside board
+         */
+        private int neighbour(int cell, PuzzleGrid.Direction direction) {
+            final int x = cell % width + direction.offsetX;
+            final int y = cell / width + direction.offsetY;
+
+            if (x < 0 || y < 0 || x >= width || y >= height)
+                return -1;
+            return y * width + x;
+        }
+
+        /**
+         * Move tile of adjacent cell into blank
+         *
+         * @param cell  Cell adjacent to blank
+         */
+        private void moveBlank(int cell) {
+            for (PuzzleGrid.Direction direction : DIRECTIONS) {
+                if (state.getMovableCell(direction) != cell)
+                    continue;
+
+                final int blank = state.getBlank();
+                positions[state.get(cell)] = blank;
+                positions[state.getBlankTile()] = cell;
+                state.move(direction);
+
+                if (length == moves.length)
+                    moves = Arrays.copyOf(moves, length * 2);
+                moves[length++] = direction;
+                return;
+            }
+            throw new IllegalStateException("Cell " + cell + " is not adjacent to blank!");
+        }
+
+        /**
+         * Solve remaining region as small board with perfect
+         * table, tiles are renumbered to cells of region
+         */
+        private void finish() {
+            final Dimension size = new Dimension(width - left, height - top);
+            final int[] tiles = new int[size.width * size.height];
+
+            for (int y = 0; y < size.height; ++y) {
+                for (int x = 0; x < size.width; ++x) {
+                    final int tile = state.get((top + y) * width + left + x);
+                    tiles[y * size.width + x] = tile == state.getBlankTile()
+                            ? tiles.length - 1
+                            : (tile / width - top) * size.width + tile % width - left;
+                }
+            }
+
+            final BoardState region = BoardState.of(tiles, size);
+            final PerfectTable table = PerfectTable.forSize(size);
+            final Solution solution = table != null
+                    ? table.solve(region)
+                    : new IdaStarSolver().solve(region);
+
+            nodes += solution.getNodes();
+            for (PuzzleGrid.Direction direction : solution.getMoves())
+                moveBlank(state.getMovableCell(direction));
+
+            if (!state.isOrdered())
+                throw new IllegalStateException("Board has not been ordered!");
+        }
+
+        /**
+         * @param cells Searched cells
+         * @param cell  Cell index
+         * @return      Index of cell in array, -1 if it is not there
+         */
+        private static int indexOf(int[] cells, int cell) {
+            for (int i = 0; i < cells.length; ++i) {
+                if (cells[i] == cell)
+                    return i;
+            }
+            return -1;
+        }
+    }
+}
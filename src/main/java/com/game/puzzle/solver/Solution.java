@@ -0,0 +1,45 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.PuzzleGrid;
+
+import javax.validation.constraints.NotNull;
+import java.util.Arrays;
+
+/**
+ * Result of solver search, moves are directions
+ * in which tiles have to be slid into blank
+ */
+public class Solution {
+    private final PuzzleGrid.Direction[] moves;
+    private final long nodes;
+    private final long nanos;
+
+    Solution(@NotNull PuzzleGrid.Direction[] moves, long nodes, long nanos) {
+        this.moves = moves;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    public PuzzleGrid.Direction[] getMoves() { return moves.clone(); }
+
+    public int getLength() { return moves.length; }
+
+    public long getNodes() { return nodes; }
+
+    public long getNanos() { return nanos; }
+
+    /**
+     * @return  Expanded nodes count per second
+     */
+    public double getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "length=%d nodes=%d time=%.3fms nodes/s=%.0f %s",
+                moves.length, nodes, nanos / 1e6, getNodesPerSecond(), Arrays.toString(moves)
+        );
+    }
+}
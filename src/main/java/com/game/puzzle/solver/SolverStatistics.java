@@ -0,0 +1,54 @@
+package com.game.puzzle.solver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative counters of solver, they are used
+ * to track search speed regressions
+ */
+public class SolverStatistics {
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+
+    /**
+     * @param nodes Expanded nodes count
+     * @param nanos Search duration
+     */
+    void record(long nodes, long nanos) {
+        this.solves.increment();
+        this.nodes.add(nodes);
+        this.nanos.add(nanos);
+    }
+
+    public long getSolves() { return solves.sum(); }
+
+    public long getNodes() { return nodes.sum(); }
+
+    public long getNanos() { return nanos.sum(); }
+
+    /**
+     * @return  Average expanded nodes count per second
+     */
+    public double getNodesPerSecond() {
+        final long elapsed = getNanos();
+        return elapsed == 0 ? 0 : getNodes() * 1e9 / elapsed;
+    }
+
+    /**
+     * Clear all counters
+     */
+    public void reset() {
+        solves.reset();
+        nodes.reset();
+        nanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "solves=%d nodes=%d time=%.3fms nodes/s=%.0f",
+                getSolves(), getNodes(), getNanos() / 1e6, getNodesPerSecond()
+        );
+    }
+}
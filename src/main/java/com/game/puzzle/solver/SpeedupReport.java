@@ -0,0 +1,68 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGenerator;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Prints speedup of parallel solver from 1 to N threads,
+ * every thread count solves the same set of random boards
+ */
+public class SpeedupReport {
+    /**
+     * @param args  Board size, boards count, maximum threads count and seed
+     * @throws IOException  Raises if pattern databases can not be loaded
+     */
+    public static void main(String[] args) throws IOException {
+        final String[] size = (args.length > 0 ? args[0] : "4x4").split("x");
+        final Dimension boardSize = new Dimension(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        final int boards = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final PuzzleGenerator generator = new PuzzleGenerator(args.length > 3 ? Long.parseLong(args[3]) : 0);
+
+        final BoardState[] states = new BoardState[boards];
+        for (int i = 0; i < boards; ++i)
+            states[i] = generator.shuffled(boardSize);
+
+        /** databases are only mapped, they are built by PatternDatabaseBuilder */
+        final PatternPartition partition = PatternPartition.forSize(boardSize);
+        final PatternDatabase[] databases = partition == null
+                ? null
+                : partition.load(PatternPartition.getDefaultDirectory());
+
+        if (partition != null && databases == null)
+            System.err.println("Pattern databases " + partition + " are not built, manhattan heuristic is used");
+
+        final Supplier<? extends Heuristic> heuristic = databases == null
+                ? ManhattanHeuristic::withLinearConflict
+                : PatternPartition.heuristic(databases);
+
+        /** warm up JIT before first measured run */
+        new ParallelIdaStarSolver(heuristic).solve(states[0]);
+
+        double baseline = 0;
+        System.out.println("threads\ttime ms\tnodes\tnodes/s\tspeedup");
+        for (int threads = 1; threads <= maxThreads; ++threads) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            final ParallelIdaStarSolver solver = new ParallelIdaStarSolver(heuristic, pool);
+
+            for (BoardState state : states)
+                solver.solve(state);
+            pool.shutdown();
+
+            final SolverStatistics statistics = solver.getStatistics();
+            final double millis = statistics.getNanos() / 1e6;
+            if (threads == 1)
+                baseline = millis;
+
+            System.out.printf(
+                    "%d\t%.1f\t%d\t%.0f\t%.2f%n",
+                    threads, millis, statistics.getNodes(), statistics.getNodesPerSecond(), baseline / millis
+            );
+        }
+    }
+}
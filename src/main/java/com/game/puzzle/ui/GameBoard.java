@@ -1,7 +1,16 @@
 package com.game.puzzle.ui;
 
+import com.game.puzzle.journal.MoveJournal;
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.ImageScaler;
 import com.game.puzzle.logic.ImageTile;
+import com.game.puzzle.logic.IntGrid;
+import com.game.puzzle.logic.PuzzleDescription;
 import com.game.puzzle.logic.PuzzleGrid;
+import com.game.puzzle.logic.TileCache;
+import com.game.puzzle.metrics.Metrics;
+import com.game.puzzle.solver.Hint;
+import com.game.puzzle.solver.HintEngine;
 
 import javax.swing.*;
 import javax.validation.constraints.NotNull;
@@ -9,6 +18,9 @@ import java.awt.*;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Callback with only mouseClick listener
@@ -34,19 +46,58 @@ public class GameBoard extends JPanel {
     @FunctionalInterface
     interface BoardListener {
         void puzzleOrdered();
+
+        /**
+         * Called after every slide made by user
+         */
+        default void puzzleMoved() {}
     }
 
     /** Constants */
-    private static final Dimension BOARD_SIZE = new Dimension(4, 4);
+    static final int MIN_BOARD_SIDE = 2;
+    static final int MAX_BOARD_SIDE = 32;
+    static final Dimension DEFAULT_BOARD_SIZE = GameBoard.parseSize(System.getProperty("puzzle.size", "4x4"));
     private static final int PUZZLE_SPACING = 2;
+    private static final String PUZZLE_IMAGE = "puzzle-image.jpg";
+    private static final Dimension MAX_IMAGE_SIZE = new Dimension(1600, 1600);
+    private static final Color HINT_COLOR = new Color(255, 140, 0);
+    private static final int HINT_STROKE = 3;
+
+    /** Count of the newest journals kept in user home */
+    private static final int KEPT_JOURNALS = 50;
+
+    /** Tiles shared by all boards, new game does not decode and cut image again */
+    static final TileCache TILE_CACHE = new TileCache();
 
     private PuzzleGrid grid = null;
     private BoardListener boardListener = null;
     private boolean disabled;
+    private MoveJournal journal = null;
+
+    /** Hints are searched only while they are shown, engine is created on first use */
+    private HintEngine hints = null;
+    private boolean hintsShown = false;
+    private Hint hint = null;
+
+    /** Rendering cache, rebuilt only on resize */
+    private Dimension cacheSize = null;
+    private Image frame = null;
+    private BufferedImage background = null;
+    private Image[] scaledTiles = null;
+    private IntGrid renderedCells = null;
+    private IntGrid boardCells = null;
+    private boolean frameValid = false;
 
     public GameBoard(boolean disabled) {
+        this(disabled, DEFAULT_BOARD_SIZE);
+    }
+
+    public GameBoard(boolean disabled, @NotNull Dimension boardSize) {
         super();
-        this.grid = GameBoard.getRandomPuzzleGrid();
+        if (!GameBoard.isSupportedSize(boardSize))
+            throw new IllegalArgumentException("Board " + boardSize.width + "x" + boardSize.height + " is not supported!");
+
+        this.grid = GameBoard.getRandomPuzzleGrid(boardSize);
         this.disabled = disabled;
 
         setLayout(null);
@@ -56,6 +107,54 @@ public class GameBoard extends JPanel {
         );
     }
 
+    /**
+     * @param size  Board size
+     * @return      True if both sides are between MIN_BOARD_SIDE and MAX_BOARD_SIDE
+     */
+    static boolean isSupportedSize(@NotNull Dimension size) {
+        return size.width >= MIN_BOARD_SIDE && size.width <= MAX_BOARD_SIDE
+                && size.height >= MIN_BOARD_SIDE && size.height <= MAX_BOARD_SIDE;
+    }
+
+    /**
+     * @param text  Board size, e.g. 4x4
+     * @return      Parsed size
+     */
+    static Dimension parseSize(@NotNull String text) {
+        final String[] parts = text.trim().split("x");
+
+        if (parts.length == 2 && parts[0].matches("\\d{1,3}") && parts[1].matches("\\d{1,3}")) {
+            final Dimension size = new Dimension(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+            if (GameBoard.isSupportedSize(size))
+                return size;
+        }
+        throw new IllegalArgumentException("Wrong board size " + text + "!");
+    }
+
+    /**
+     * Replace board with new one of provided size, game of previous board is
+     * abandoned. Tiles are cut again and rendering cache is rebuilt.
+     *
+     * @param size  Count of tiles in row and column
+     */
+    void setBoardSize(@NotNull Dimension size) {
+        if (!GameBoard.isSupportedSize(size))
+            throw new IllegalArgumentException("Board " + size.width + "x" + size.height + " is not supported!");
+
+        if (size.equals(grid.getSize()))
+            return;
+
+        closeJournal();
+        if (hints != null)
+            hints.cancel();
+
+        hints = null;
+        hint = null;
+        grid = GameBoard.getRandomPuzzleGrid(size);
+        cacheSize = null;
+        repaint();
+    }
+
     /**
      * Disable any changes in board
      *
@@ -63,9 +162,65 @@ public class GameBoard extends JPanel {
      */
     public void setDisabled(boolean disabled) {
         this.disabled = disabled;
+        if (disabled)
+            setHintsShown(false);
+
         repaint();
     }
 
+    /**
+     * Show next best move, hint is searched again after every slide
+     *
+     * @param hintsShown    Show hints flag
+     */
+    void setHintsShown(boolean hintsShown) {
+        this.hintsShown = hintsShown;
+
+        if (hintsShown) {
+            if (hints == null)
+                hints = HintEngine.forSize(grid.getSize());
+            requestHint();
+        } else {
+            if (hints != null)
+                hints.cancel();
+            showHint(null);
+        }
+    }
+
+    /**
+     * @return  Displayed hint, null if hints are hidden or not known yet
+     */
+    Hint getHint() { return hint; }
+
+    /**
+     * Cancel search of previous board and show hint known at once,
+     * hint of shortest solution is shown when search finishes
+     */
+    private void requestHint() {
+        if (!hintsShown || disabled)
+            return;
+
+        showHint(hints.request(
+                grid.getState(),
+                found -> SwingUtilities.invokeLater(() -> showHint(found))
+        ));
+    }
+
+    /**
+     * @param hint  Hint to show, ignored if it belongs to other board
+     */
+    private void showHint(Hint hint) {
+        if (hint != null && (!hintsShown || hint.getHash() != grid.getHash()))
+            return;
+
+        if (this.hint != null)
+            repaint(getCellBounds(this.hint.getCell()));
+
+        this.hint = hint;
+        if (hint != null)
+            repaint(getCellBounds(hint.getCell()));
+    }
+
     /**
      * @param boardListener Listener called on game board state change
      */
@@ -73,6 +228,31 @@ public class GameBoard extends JPanel {
         this.boardListener = boardListener;
     }
 
+    public PuzzleGrid getGrid() { return grid; }
+
+    /**
+     * Slide tile and repaint only cells between tile and blank
+     *
+     * @param index Slide index inside array
+     * @return      Repainted area, null if nothing has been moved
+     */
+    public Rectangle slide(@NotNull Point index) {
+        final int blank = grid.getState().getBlank();
+
+        if (!grid.slide(index))
+            return null;
+
+        final Rectangle dirty = getCellBounds(blank).union(
+                getCellBounds(index.y * grid.getState().getWidth() + index.x)
+        );
+        repaint(dirty);
+        requestHint();
+
+        if (boardListener != null)
+            boardListener.puzzleMoved();
+        return dirty;
+    }
+
     /**
      * Trigger slide, if user not change any slide do not repaint
      *
@@ -82,13 +262,9 @@ public class GameBoard extends JPanel {
         if (disabled)
             return;
 
-        final boolean slided = grid.slide(
-                getPuzzleIndex(e)
-        );
-        if (!slided)
+        if (slide(getPuzzleIndex(e)) == null)
             return;
 
-        repaint();
         if (grid.isOrdered()) {
             if (boardListener != null)
                 boardListener.puzzleOrdered();
@@ -108,9 +284,89 @@ public class GameBoard extends JPanel {
      */
     void shuffle() {
         grid.shuffle();
+        startJournal();
+        resetHints();
+        repaint();
+    }
+
+    /**
+     * Continue saved game without shuffle
+     *
+     * @param state Saved board
+     */
+    void restore(@NotNull BoardState state) {
+        grid.setState(state);
+        resumeJournal();
+        resetHints();
         repaint();
     }
 
+    /**
+     * Forget solution of previous board
+     */
+    private void resetHints() {
+        if (hints != null)
+            hints.reset();
+
+        showHint(null);
+        requestHint();
+    }
+
+    /**
+     * @return  Identity of puzzle image, saved with game
+     */
+    String getImageKey() { return PUZZLE_IMAGE; }
+
+    /**
+     * Record moves of new game in journal placed in user home,
+     * game can be played even if journal cannot be created
+     */
+    private void startJournal() {
+        closeJournal();
+
+        final Path directory = MoveJournal.getDefaultDirectory();
+        try {
+            journal = MoveJournal.create(
+                    directory.resolve(System.currentTimeMillis() + MoveJournal.EXTENSION),
+                    grid.getState()
+            );
+            grid.setMoveListener(journal);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        MoveJournal.prune(directory, GameBoard.KEPT_JOURNALS);
+    }
+
+    /**
+     * Continue journal of restored game, new journal is
+     * started if the newest one does not end with board
+     */
+    private void resumeJournal() {
+        closeJournal();
+
+        journal = MoveJournal.resume(MoveJournal.getDefaultDirectory(), grid.getState());
+        if (journal == null)
+            startJournal();
+        else
+            grid.setMoveListener(journal);
+    }
+
+    /**
+     * Close journal of current game
+     */
+    void closeJournal() {
+        grid.setMoveListener(null);
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            journal = null;
+        }
+    }
+
     /**
      * @param e Mouse click / move event
      * @return  Slide index inside array
@@ -126,7 +382,7 @@ public class GameBoard extends JPanel {
      * @return  Single puzzle size relative to JPanel board size, its not image size
      */
     private Dimension getPuzzleSize() {
-        final Dimension GRID_SIZE = grid.getPuzzles().getSize();
+        final Dimension GRID_SIZE = grid.getSize();
         return new Dimension(
                 getSize().width / GRID_SIZE.width,
                 getSize().height / GRID_SIZE.height
@@ -134,16 +390,34 @@ public class GameBoard extends JPanel {
     }
 
     /**
-     * @return  Shuffled random tile with image
+     * @param cell  Cell index
+     * @return      Area of cell inside board
      */
-    private static PuzzleGrid getRandomPuzzleGrid() {
+    private Rectangle getCellBounds(int cell) {
+        final Dimension puzzleSize = getPuzzleSize();
+        final int width = grid.getState().getWidth();
+
+        return new Rectangle(
+                (cell % width) * puzzleSize.width,
+                (cell / width) * puzzleSize.height,
+                puzzleSize.width,
+                puzzleSize.height
+        );
+    }
+
+    /**
+     * @param boardSize Count of tiles in row and column
+     * @return          Shuffled random tile with image
+     */
+    private static PuzzleGrid getRandomPuzzleGrid(@NotNull Dimension boardSize) {
         ImageTile tile = null;
 
         try {
-            tile = new ImageTile(
-                    Resources.getImage("puzzle-image.jpg"),
-                    BOARD_SIZE,
-                    null
+            tile = TILE_CACHE.get(
+                    PUZZLE_IMAGE,
+                    boardSize,
+                    null,
+                    () -> Resources.getImage(PUZZLE_IMAGE, MAX_IMAGE_SIZE)
             );
         } catch (Exception e) {
             e.printStackTrace();
@@ -161,51 +435,161 @@ public class GameBoard extends JPanel {
     }
 
     /**
-     * Draw puzzle grid
+     * @param image Source image
+     * @param size  Target size
+     * @return      Image scaled once, used by cached layers
+     */
+    private static Image scaleImage(@NotNull Image image, @NotNull Dimension size) {
+        if (image instanceof BufferedImage)
+            return ImageScaler.scale((BufferedImage) image, size, ImageScaler.Policy.BALANCED);
+
+        return image.getScaledInstance(size.width, size.height, Image.SCALE_SMOOTH);
+    }
+
+    /**
+     * Rebuild faded background and tiles scaled to new size of board
+     *
+     * @param size  Size of board
+     */
+    private void rebuildCache(@NotNull Dimension size) {
+        cacheSize = size;
+        frame = createFrame(size);
+        frameValid = false;
+
+        background = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D ctx = background.createGraphics();
+        ctx.setColor(getBackground());
+        ctx.fillRect(0, 0, size.width, size.height);
+        ctx.setComposite(GameBoard.makeAlphaComposite(.15f));
+        ctx.drawImage(GameBoard.scaleImage(grid.getTile().getImage(), size), 0, 0, null);
+        ctx.dispose();
+
+        final Dimension puzzleSize = getPuzzleSize();
+        final Dimension tileSize = new Dimension(
+                Math.max(1, puzzleSize.width - GameBoard.PUZZLE_SPACING),
+                Math.max(1, puzzleSize.height - GameBoard.PUZZLE_SPACING)
+        );
+
+        final PuzzleDescription puzzles = grid.getPuzzles();
+        scaledTiles = new Image[puzzles.getCount()];
+        for (int number = 0; number < scaledTiles.length; ++number)
+            scaledTiles[number] = GameBoard.scaleImage(puzzles.getImage(number), tileSize);
+
+        renderedCells = new IntGrid(grid.getSize());
+        boardCells = new IntGrid(grid.getSize());
+    }
+
+    /**
+     * @param size  Size of board
+     * @return      Accelerated image if board is displayed, buffered otherwise
+     */
+    private Image createFrame(@NotNull Dimension size) {
+        final GraphicsConfiguration config = getGraphicsConfiguration();
+
+        if (config == null || GraphicsEnvironment.isHeadless())
+            return new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+
+        return config.createCompatibleVolatileImage(size.width, size.height);
+    }
+
+    /**
+     * Draw into cached frame only cells that changed since last paint
+     */
+    private void renderFrame() {
+        final long start = Metrics.start();
+        int redrawn = 0;
+
+        if (frame instanceof VolatileImage) {
+            final int status = ((VolatileImage) frame).validate(getGraphicsConfiguration());
+
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE)
+                frame = createFrame(cacheSize);
+
+            if (status != VolatileImage.IMAGE_OK)
+                frameValid = false;
+        }
+
+        final Graphics2D ctx = (Graphics2D) frame.getGraphics();
+        if (!frameValid) {
+            ctx.drawImage(background, 0, 0, null);
+            renderedCells.fill(-1);
+            frameValid = true;
+        }
+
+        /** unchanged runs of cells are skipped by single bulk compare */
+        final int blankTile = grid.getState().getBlankTile();
+        grid.copyTiles(boardCells);
+
+        for (int i = boardCells.mismatch(renderedCells, 0); i != -1; i = boardCells.mismatch(renderedCells, i + 1)) {
+            final int number = boardCells.get(i);
+            final Rectangle cell = getCellBounds(i);
+            ctx.drawImage(
+                    background,
+                    cell.x, cell.y, cell.x + cell.width, cell.y + cell.height,
+                    cell.x, cell.y, cell.x + cell.width, cell.y + cell.height,
+                    null
+            );
+
+            if (number != blankTile) {
+                ctx.drawImage(
+                        scaledTiles[number],
+                        cell.x + GameBoard.PUZZLE_SPACING / 2,
+                        cell.y + GameBoard.PUZZLE_SPACING / 2,
+                        null
+                );
+            }
+
+            renderedCells.set(i, number);
+            ++redrawn;
+        }
+        ctx.dispose();
+
+        if (start != 0)
+            Metrics.renderFrame(start, cacheSize.width, cacheSize.height, redrawn);
+    }
+
+    /**
+     * Draw puzzle grid, only changed cells are drawn into cached
+     * frame and only clip area of frame is copied to screen,
+     * border and children are painted by Swing
      *
      * @param g Graphics
      */
     @Override
-    public void paint (Graphics g) {
-        if (grid == null)
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+
+        if (grid == null || getWidth() <= 0 || getHeight() <= 0)
             return;
 
-        super.paint(g);
+        if (!getSize().equals(cacheSize))
+            rebuildCache(getSize());
 
         /**
-         * Draw background
+         * Accelerated frame may be lost during copy, draw again
          */
-        final Graphics2D imgContext = (Graphics2D) g.create();
-        imgContext.setComposite(GameBoard.makeAlphaComposite(.15f));
-        imgContext.drawImage(
-            grid.getTile().getImage(),
-                0, 0,
-                getSize().width,
-                getSize().height,
-                null
-        );
-        imgContext.dispose();
+        do {
+            renderFrame();
+            g.drawImage(frame, 0, 0, null);
+        } while (frame instanceof VolatileImage && ((VolatileImage) frame).contentsLost());
 
         /**
-         * Draw game grid
+         * Draw hint over frame, frame cache is not changed
          */
-        final Dimension puzzleSize = getPuzzleSize();
-        final Graphics2D g2 = (Graphics2D) g;
-
-        grid.getPuzzles().map((puzzle, x, y) -> {
-            if (puzzle != null) {
-                final BufferedImage img = (BufferedImage) puzzle.getImage();
-                g2.drawImage(
-                        img,
-                        x * puzzleSize.width + GameBoard.PUZZLE_SPACING / 2,
-                        y * puzzleSize.height + GameBoard.PUZZLE_SPACING / 2,
-                        puzzleSize.width - GameBoard.PUZZLE_SPACING,
-                        puzzleSize.height - GameBoard.PUZZLE_SPACING,
-                        null
-                );
-            }
-            return null;
-        });
+        if (hint != null && !disabled) {
+            final Rectangle cell = getCellBounds(hint.getCell());
+            final Graphics2D hintContext = (Graphics2D) g.create();
+
+            hintContext.setColor(GameBoard.HINT_COLOR);
+            hintContext.setStroke(new BasicStroke(GameBoard.HINT_STROKE));
+            hintContext.drawRect(
+                    cell.x + GameBoard.HINT_STROKE / 2,
+                    cell.y + GameBoard.HINT_STROKE / 2,
+                    cell.width - GameBoard.HINT_STROKE,
+                    cell.height - GameBoard.HINT_STROKE
+            );
+            hintContext.dispose();
+        }
 
         /**
          * Draw disabled layer
@@ -1,11 +1,16 @@
 package com.game.puzzle.ui;
 
 import com.game.puzzle.logic.SecondsTimer;
+import com.game.puzzle.session.GameSnapshot;
+import com.game.puzzle.session.SnapshotStore;
 
 import javax.swing.*;
 import java.awt.*;
 import javax.validation.constraints.NotNull;
 import javax.swing.border.EmptyBorder;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Simple class that helps with
@@ -37,10 +42,15 @@ class IconButton extends JButton {
 public class GamePanel extends JPanel {
     private GameBoard board = new GameBoard(true);
     private SecondsTimer timer = null;
+    private SnapshotStore sessions = null;
+    private final AtomicLong displayedSeconds = new AtomicLong();
+    private final AtomicBoolean timeUpdatePending = new AtomicBoolean();
 
     private JLabel timeTooltip = null;
     private IconButton shuffleButton = null;
     private IconButton stopButton = null;
+    private JToggleButton hintButton = null;
+    private JComboBox<String> sizeBox = null;
 
     public GamePanel() {
         super();
@@ -48,7 +58,66 @@ public class GamePanel extends JPanel {
         setBorder(new EmptyBorder(10, 10, 10, 10));
         createLayout();
 
-        board.addBoardListener(this::stopTimer);
+        board.addBoardListener(new GameBoard.BoardListener() {
+            @Override
+            public void puzzleOrdered() {
+                stopTimer();
+            }
+
+            @Override
+            public void puzzleMoved() {
+                saveSession();
+            }
+        });
+        restoreSession();
+    }
+
+    /**
+     * Open store of sessions and continue last unfinished
+     * game, board is not shuffled again
+     */
+    private void restoreSession() {
+        try {
+            sessions = SnapshotStore.open(SnapshotStore.getDefaultFile());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        final GameSnapshot snapshot = sessions.load();
+        if (snapshot == null
+                || !snapshot.getImageKey().equals(board.getImageKey())
+                || !GameBoard.isSupportedSize(snapshot.getState().getSize()))
+            return;
+
+        board.setBoardSize(snapshot.getState().getSize());
+        selectSize(snapshot.getState().getSize());
+        board.restore(snapshot.getState());
+        startTimer(snapshot.getElapsedMillis());
+    }
+
+    /**
+     * Save board and elapsed time of running game
+     */
+    void saveSession() {
+        if (sessions != null && timer != null)
+            sessions.save(GameSnapshot.of(board.getGrid(), timer, board.getImageKey()));
+    }
+
+    /**
+     * Save running game and flush store, called when window is closed
+     */
+    void closeSession() {
+        if (sessions == null)
+            return;
+
+        saveSession();
+        try {
+            sessions.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        sessions = null;
     }
 
     /**
@@ -63,20 +132,44 @@ public class GamePanel extends JPanel {
      * Starts new timer if previous is stopped
      */
     private void startTimer() {
+        startTimer(0);
+    }
+
+    /**
+     * @param elapsedMillis Initial elapsed time of game
+     */
+    private void startTimer(long elapsedMillis) {
         if (timer != null)
             timer.stop();
 
         board.setDisabled(false);
 
         stopButton.setVisible(true);
+        hintButton.setVisible(true);
         shuffleButton.setIcon("refresh");
 
-        timer = new SecondsTimer(seconds -> {
-            SwingUtilities.invokeLater(
-                    () -> timeTooltip.setText(GamePanel.getTimeTranslation(seconds))
-            );
-            return false;
-        });
+        timer = new SecondsTimer(this::updateTime, elapsedMillis);
+        updateTime(timer.getElapsedSeconds());
+        saveSession();
+    }
+
+    /**
+     * Coalesce time updates, only one update is queued
+     * in event loop and it shows the latest value
+     *
+     * @param seconds   Elapsed seconds count
+     * @return          False, timer is never stopped
+     */
+    private boolean updateTime(long seconds) {
+        displayedSeconds.set(seconds);
+
+        if (timeUpdatePending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(() -> {
+                timeUpdatePending.set(false);
+                timeTooltip.setText(GamePanel.getTimeTranslation(displayedSeconds.get()));
+            });
+        }
+        return false;
     }
 
     /**
@@ -84,14 +177,21 @@ public class GamePanel extends JPanel {
      */
     private void stopTimer() {
         board.setDisabled(true);
+        board.closeJournal();
 
         stopButton.setVisible(false);
+        hintButton.setSelected(false);
+        hintButton.setVisible(false);
         shuffleButton.setIcon("play-button");
 
         if (timer != null) {
             timer.stop();
             timer = null;
         }
+
+        /** finished or stopped game is not restored */
+        if (sessions != null)
+            sessions.clear();
     }
 
 
@@ -127,13 +227,63 @@ public class GamePanel extends JPanel {
                 (e) -> stopTimer()
         );
 
+        hintButton = new JToggleButton(Resources.Translations.getString("hint"));
+        hintButton.setVisible(false);
+        hintButton.addActionListener(
+                (e) -> board.setHintsShown(hintButton.isSelected())
+        );
+
+        sizeBox = createSizeBox();
+        selectSize(board.getGrid().getSize());
+        sizeBox.addActionListener(
+                (e) -> changeSize(GameBoard.parseSize((String) sizeBox.getSelectedItem()))
+        );
+
         JPanel panel = new JPanel(new FlowLayout());
         panel.add(stopButton);
         panel.add(timeTooltip);
+        panel.add(hintButton);
+        panel.add(sizeBox);
 
         return panel;
     }
 
+    /**
+     * @return  Selector of square boards
+     */
+    private JComboBox<String> createSizeBox() {
+        final JComboBox<String> sizeBox = new JComboBox<>();
+        for (int side = GameBoard.MIN_BOARD_SIDE; side <= GameBoard.MAX_BOARD_SIDE; ++side)
+            sizeBox.addItem(side + "x" + side);
+
+        sizeBox.setToolTipText(Resources.Translations.getString("board_size"));
+        return sizeBox;
+    }
+
+    /**
+     * @param size  Board size, it is added to selector if it is not square
+     */
+    private void selectSize(@NotNull Dimension size) {
+        final String item = size.width + "x" + size.height;
+        if (((DefaultComboBoxModel<String>) sizeBox.getModel()).getIndexOf(item) == -1)
+            sizeBox.addItem(item);
+
+        sizeBox.setSelectedItem(item);
+    }
+
+    /**
+     * Abandon running game and replace board
+     *
+     * @param size  New board size
+     */
+    private void changeSize(@NotNull Dimension size) {
+        if (size.equals(board.getGrid().getSize()))
+            return;
+
+        stopTimer();
+        board.setBoardSize(size);
+    }
+
     /**
      * Creates time tooltip with timer thread
      * @return  Instance of JLabel Swing component
@@ -1,7 +1,11 @@
 package com.game.puzzle.ui;
 
+import com.game.puzzle.metrics.Metrics;
+
 import javax.swing.*;
 import java.awt.Dimension;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 /**
  * Main game window it should only initialize
@@ -20,12 +24,21 @@ public class GameWindow extends JFrame {
         JFrame window = new JFrame(Resources.Translations.getString("app_name"));
         window.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         window.setPreferredSize(GameWindow.WINDOW_SIZE);
-        window.setContentPane(new GamePanel());
+        final GamePanel panel = new GamePanel();
+        window.setContentPane(panel);
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                panel.closeSession();
+            }
+        });
         window.pack();
         window.setVisible(true);
     }
 
     public static void main(String[] args) {
+        Metrics.register();
+        Resources.preloadAsync();
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
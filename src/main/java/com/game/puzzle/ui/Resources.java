@@ -1,15 +1,23 @@
 package com.game.puzzle.ui;
 
+import com.game.puzzle.logic.ImageDecoder;
+import com.game.puzzle.metrics.Metrics;
+
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import javax.validation.constraints.NotNull;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URL;
 import java.text.MessageFormat;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 public class Resources {
     static class Translations {
@@ -33,16 +41,132 @@ public class Resources {
         }
     }
 
+    /**
+     * Counters of resource cache
+     */
+    public static class Statistics {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder decodeNanos = new LongAdder();
+
+        public long getHits() { return hits.sum(); }
+
+        public long getMisses() { return misses.sum(); }
+
+        /**
+         * @return  Total time spent on decoding images
+         */
+        public long getDecodeNanos() { return decodeNanos.sum(); }
+
+        /**
+         * @return  Ratio of hits to all lookups, 0 if cache was not used
+         */
+        public double getHitRatio() {
+            final long total = getHits() + getMisses();
+            return total == 0 ? 0 : (double) getHits() / total;
+        }
+
+        /**
+         * Clear all counters
+         */
+        public void reset() {
+            hits.reset();
+            misses.reset();
+            decodeNanos.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "hits=%d misses=%d decode=%.3fms",
+                    getHits(), getMisses(), getDecodeNanos() / 1e6
+            );
+        }
+    }
+
+    /** Icons inside images/icons/ folder loaded by preload */
+    static final String[] ICONS = { "checked", "play-button", "refresh", "stop", "wall-clock" };
+
+    /** Decoded resources shared by whole process, keyed by path and size */
+    private static final ConcurrentHashMap<String, BufferedImage> images = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ImageIcon> icons = new ConcurrentHashMap<>();
+    private static final Statistics statistics = new Statistics();
+
+    /**
+     * @return  Counters of resource cache
+     */
+    public static Statistics getStatistics() { return statistics; }
+
+    /**
+     * Decode all icons, UI state changes do not touch I/O after it
+     */
+    public static void preload() {
+        for (String icon : ICONS)
+            Resources.getIcon(icon);
+    }
+
+    /**
+     * @return  Future completed after all icons are decoded in background
+     */
+    public static CompletableFuture<Void> preloadAsync() {
+        return CompletableFuture.runAsync(Resources::preload);
+    }
+
+    /**
+     * Drop all decoded resources, counters are not reset
+     */
+    public static void clear() {
+        images.clear();
+        icons.clear();
+    }
+
+    /**
+     * @param key       Key of resource in cache
+     * @param decoder   Decoder called only if resource is not cached
+     * @return          Decoded image, null if not present
+     */
+    private static BufferedImage getCachedImage(@NotNull String key, @NotNull Supplier<BufferedImage> decoder) {
+        final BufferedImage cached = images.get(key);
+        if (cached != null) {
+            statistics.hits.increment();
+            return cached;
+        }
+
+        statistics.misses.increment();
+        final long start = System.nanoTime();
+        final BufferedImage image = decoder.get();
+        statistics.decodeNanos.add(System.nanoTime() - start);
+
+        if (image == null)
+            return null;
+
+        /** concurrent decode of same resource, keep first image */
+        final BufferedImage previous = images.putIfAbsent(key, image);
+        return previous == null ? image : previous;
+    }
+
     /**
      * @param resource  Resource path to be appended to /images/ path
      * @return  Loaded image, null if not present
      */
     public static BufferedImage getImage(@NotNull String resource) {
+        return Resources.getCachedImage(resource, () -> Resources.readImage(resource));
+    }
+
+    /**
+     * @param resource  Resource path to be appended to /images/ path
+     * @return  Decoded image, null if not present
+     */
+    private static BufferedImage readImage(@NotNull String resource) {
         final URL imageResource = Resources.class.getResource("/images/" + resource);
         BufferedImage image = null;
 
+        final long start = Metrics.start();
         try {
             image = ImageIO.read(imageResource);
+
+            if (start != 0 && image != null)
+                Metrics.imageDecode(start, imageResource.toString(), image.getWidth(), image.getHeight(), image.getWidth(), image.getHeight());
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -50,13 +174,58 @@ public class Resources {
         return image;
     }
 
+    /**
+     * Decode image subsampled to display size, huge images
+     * are never fully decoded into memory
+     *
+     * @param resource  Resource path to be appended to /images/ path
+     * @param maxSize   Maximum size of decoded image
+     * @return  Loaded image, null if not present
+     */
+    public static BufferedImage getImage(@NotNull String resource, @NotNull Dimension maxSize) {
+        return Resources.getImage(resource, maxSize, null);
+    }
+
+    /**
+     * @param resource  Resource path to be appended to /images/ path
+     * @param maxSize   Maximum size of decoded image
+     * @param listener  Listener of decode progress, not called if image is cached
+     * @return  Loaded image, null if not present
+     */
+    public static BufferedImage getImage(
+            @NotNull String resource,
+            @NotNull Dimension maxSize,
+            ImageDecoder.ProgressListener listener) {
+        return Resources.getCachedImage(resource + "@" + maxSize.width + "x" + maxSize.height, () -> {
+            BufferedImage image = null;
+
+            try {
+                image = new ImageDecoder()
+                        .setProgressListener(listener)
+                        .decode(Resources.class.getResource("/images/" + resource), maxSize);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            return image;
+        });
+    }
+
     /**
      * @param icon  PNG icons name inside images/icons/ folder
-     * @return  Loaded ImageIcon object
+     * @return  Loaded ImageIcon object, shared by all callers
      */
     public static ImageIcon getIcon(@NotNull String icon) {
-        return new ImageIcon(
+        final ImageIcon cached = icons.get(icon);
+        if (cached != null) {
+            statistics.hits.increment();
+            return cached;
+        }
+
+        final ImageIcon loaded = new ImageIcon(
                 Resources.getImage("icons/" + icon + ".png")
         );
+        final ImageIcon previous = icons.putIfAbsent(icon, loaded);
+        return previous == null ? loaded : previous;
     }
 }
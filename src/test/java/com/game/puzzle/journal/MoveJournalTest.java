@@ -0,0 +1,172 @@
+package com.game.puzzle.journal;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Journal must replay exactly the moves appended to it, across
+ * chunk boundaries, after reopening and after resuming saved game
+ */
+public class MoveJournalTest {
+    private static final Dimension SIZE = new Dimension(4, 4);
+
+    /** Enough moves to span several doubling chunks */
+    private static final int MOVES = 100_003;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayReturnsAppendedMoves() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("game" + MoveJournal.EXTENSION);
+        final BoardState state = new PuzzleGenerator(1).shuffled(SIZE);
+        final List<BoardState> states = new ArrayList<>();
+        final List<PuzzleGrid.Direction> moves = new ArrayList<>();
+
+        try (MoveJournal journal = MoveJournal.create(file, state)) {
+            states.add(state.copy());
+            play(journal, state, new Random(2), MOVES, states, moves);
+            assertEquals(MOVES, journal.getMoveCount());
+        }
+
+        final MoveReplay replay = MoveReplay.open(file, 1000);
+        assertEquals(MOVES, replay.getMoveCount());
+        assertEquals(states.get(0), replay.getInitialState());
+
+        for (int i = 0; i < MOVES; ++i)
+            assertEquals(moves.get(i), replay.getMove(i));
+
+        for (int i = 0; i <= MOVES; i += 997)
+            assertEquals(states.get(i), replay.seek(i));
+        assertEquals(state, replay.seek(MOVES));
+    }
+
+    @Test
+    public void closedJournalEndsAtLastMoveAndCanBeReopened() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("game" + MoveJournal.EXTENSION);
+        final BoardState state = new PuzzleGenerator(3).shuffled(SIZE);
+        final Random random = new Random(4);
+        final int headerSize = MoveJournal.getHeaderSize(state.getCellCount());
+
+        try (MoveJournal journal = MoveJournal.create(file, state)) {
+            play(journal, state, random, MOVES, null, null);
+        }
+        assertEquals(headerSize + (MOVES + 3) / 4, Files.size(file));
+
+        try (MoveJournal journal = MoveJournal.open(file)) {
+            assertEquals(MOVES, journal.getMoveCount());
+            play(journal, state, random, 1001, null, null);
+        }
+        assertEquals(headerSize + (MOVES + 1001 + 3) / 4, Files.size(file));
+
+        final MoveReplay replay = MoveReplay.open(file);
+        assertEquals(MOVES + 1001, replay.getMoveCount());
+        assertEquals(state, replay.seek(replay.getMoveCount()));
+    }
+
+    @Test
+    public void closeCanBeRepeated() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("game" + MoveJournal.EXTENSION);
+        final MoveJournal journal = MoveJournal.create(file, BoardState.create(SIZE));
+
+        journal.close();
+        journal.close();
+        assertEquals(MoveJournal.getHeaderSize(16), Files.size(file));
+    }
+
+    @Test
+    public void resumeContinuesNewestJournalEndingWithBoard() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+        final BoardState older = new PuzzleGenerator(5).shuffled(SIZE);
+        final BoardState newer = new PuzzleGenerator(6).shuffled(SIZE);
+
+        assertNull(MoveJournal.resume(directory, newer));
+
+        final Path olderFile = directory.resolve("1" + MoveJournal.EXTENSION);
+        final Path newerFile = directory.resolve("2" + MoveJournal.EXTENSION);
+        try (MoveJournal journal = MoveJournal.create(olderFile, older)) {
+            play(journal, older, new Random(7), 500, null, null);
+        }
+        try (MoveJournal journal = MoveJournal.create(newerFile, newer)) {
+            play(journal, newer, new Random(8), 500, null, null);
+        }
+        Files.setLastModifiedTime(olderFile, FileTime.fromMillis(1_000_000));
+        Files.setLastModifiedTime(newerFile, FileTime.fromMillis(2_000_000));
+
+        /** only the newest journal is continued */
+        assertNull(MoveJournal.resume(directory, older));
+
+        try (MoveJournal journal = MoveJournal.resume(directory, newer)) {
+            assertNotNull(journal);
+            assertEquals(500, journal.getMoveCount());
+            play(journal, newer, new Random(9), 500, null, null);
+        }
+
+        final MoveReplay replay = MoveReplay.open(newerFile);
+        assertEquals(1000, replay.getMoveCount());
+        assertEquals(newer, replay.seek(1000));
+    }
+
+    @Test
+    public void pruneKeepsNewestJournals() throws IOException {
+        final Path directory = folder.getRoot().toPath();
+
+        for (int i = 0; i < 5; ++i) {
+            final Path file = directory.resolve(i + MoveJournal.EXTENSION);
+            MoveJournal.create(file, BoardState.create(SIZE)).close();
+            Files.setLastModifiedTime(file, FileTime.fromMillis(1_000_000L * (i + 1)));
+        }
+
+        MoveJournal.prune(directory, 2);
+
+        assertEquals(2, MoveJournal.list(directory).size());
+        assertFalse(Files.exists(directory.resolve("2" + MoveJournal.EXTENSION)));
+        assertTrue(Files.exists(directory.resolve("3" + MoveJournal.EXTENSION)));
+        assertTrue(Files.exists(directory.resolve("4" + MoveJournal.EXTENSION)));
+    }
+
+    /**
+     * @param journal   Journal of board
+     * @param state     Board changed by moves
+     * @param random    Source of moves
+     * @param count     Count of legal moves
+     * @param states    Boards after every move, ignored if null
+     * @param moves     Appended moves, ignored if null
+     */
+    private static void play(MoveJournal journal, BoardState state, Random random, int count,
+                             List<BoardState> states, List<PuzzleGrid.Direction> moves) {
+        final PuzzleGrid.Direction[] directions = PuzzleGrid.Direction.values();
+
+        for (int i = 0; i < count; ) {
+            final PuzzleGrid.Direction direction = directions[random.nextInt(directions.length)];
+            if (!state.move(direction))
+                continue;
+
+            journal.append(direction);
+            if (states != null)
+                states.add(state.copy());
+            if (moves != null)
+                moves.add(direction);
+            ++i;
+        }
+    }
+}
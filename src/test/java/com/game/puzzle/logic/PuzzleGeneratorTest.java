@@ -0,0 +1,85 @@
+package com.game.puzzle.logic;
+
+import org.junit.Test;
+
+import java.awt.Dimension;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Shuffled boards must be solvable, reproducible from
+ * seed and every solvable board must be equally likely
+ */
+public class PuzzleGeneratorTest {
+    private static final Dimension[] SIZES = {
+            new Dimension(2, 2),
+            new Dimension(3, 3),
+            new Dimension(4, 4),
+            new Dimension(2, 7),
+            new Dimension(6, 3),
+            new Dimension(32, 32)
+    };
+
+    @Test
+    public void shuffledBoardsAreSolvableWithBlankInCorner() {
+        final PuzzleGenerator generator = new PuzzleGenerator(11);
+
+        for (Dimension size : SIZES) {
+            for (int i = 0; i < 2_000; ++i) {
+                final BoardState state = generator.shuffled(size);
+
+                assertEquals(state.getCellCount() - 1, state.getBlank());
+                assertEquals(state.getBlankTile(), state.get(state.getBlank()));
+                assertTrue(state.toString(), state.isSolvable());
+            }
+        }
+    }
+
+    @Test
+    public void scrambledBoardsAreSolvable() {
+        final PuzzleGenerator generator = new PuzzleGenerator(12);
+
+        for (Dimension size : SIZES) {
+            for (int depth = 0; depth < 200; depth += 7)
+                assertTrue(generator.scrambled(size, depth).isSolvable());
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameBoards() {
+        final PuzzleGenerator first = new PuzzleGenerator(42);
+        final PuzzleGenerator second = new PuzzleGenerator(42);
+
+        for (int i = 0; i < 100; ++i)
+            assertEquals(first.shuffled(new Dimension(4, 4)), second.shuffled(new Dimension(4, 4)));
+    }
+
+    /**
+     * 2x3 board with blank in corner has 5! / 2 = 60 solvable orders,
+     * with fixed seed every order must get close to 1/60 of samples
+     */
+    @Test
+    public void everySolvableBoardIsEquallyLikely() {
+        final int orders = 60;
+        final int samples = orders * 2_000;
+        final PuzzleGenerator generator = new PuzzleGenerator(5);
+        final Map<String, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < samples; ++i)
+            counts.merge(Arrays.toString(generator.shuffled(new Dimension(2, 3)).toArray()), 1, Integer::sum);
+
+        assertEquals(orders, counts.size());
+
+        /** chi-square with 59 degrees of freedom, 0.001 critical value is about 98 */
+        final double expected = (double) samples / orders;
+        double chiSquare = 0;
+        for (int count : counts.values())
+            chiSquare += (count - expected) * (count - expected) / expected;
+
+        assertTrue("chi-square " + chiSquare, chiSquare < 98);
+    }
+}
@@ -0,0 +1,123 @@
+package com.game.puzzle.logic;
+
+import org.junit.Test;
+
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Metrics of PuzzleGrid are updated by every move,
+ * they must always match metrics computed from scratch
+ */
+public class PuzzleGridTest {
+    private static final Dimension[] SIZES = {
+            new Dimension(2, 2),
+            new Dimension(3, 3),
+            new Dimension(4, 4),
+            new Dimension(3, 5),
+            new Dimension(8, 2),
+            new Dimension(17, 17)
+    };
+
+    @Test
+    public void metricsMatchFullRecomputeAfterRandomSlides() {
+        final Random random = new Random(1);
+
+        for (Dimension size : SIZES) {
+            final PuzzleGrid grid = new PuzzleGrid(size);
+            grid.shuffle(new PuzzleGenerator(size.width * 31 + size.height));
+            assertMetrics(grid);
+
+            for (int i = 0; i < 40_000; ++i) {
+                final boolean moved = grid.slide(new Point(random.nextInt(size.width), random.nextInt(size.height)));
+                if (moved || i % 1000 == 0)
+                    assertMetrics(grid);
+            }
+        }
+    }
+
+    @Test
+    public void metricsMatchFullRecomputeAfterMoveSequences() {
+        final PuzzleGenerator generator = new PuzzleGenerator(7);
+        final PuzzleGrid.Direction[] directions = PuzzleGrid.Direction.values();
+
+        for (Dimension size : SIZES) {
+            final PuzzleGrid grid = new PuzzleGrid(size);
+            grid.scramble(generator, 500);
+            assertMetrics(grid);
+
+            for (int i = 0; i < 5_000; ++i) {
+                grid.slide(directions[i % directions.length], 1 + i % Math.max(size.width, size.height));
+                assertMetrics(grid);
+            }
+        }
+    }
+
+    @Test
+    public void metricsAreRecomputedForNewState() {
+        final PuzzleGrid grid = new PuzzleGrid(new Dimension(4, 4));
+        final BoardState state = new PuzzleGenerator(3).shuffled(new Dimension(4, 4));
+
+        grid.setState(state);
+        assertMetrics(grid);
+
+        grid.setState(BoardState.create(new Dimension(4, 4)));
+        assertTrue(grid.isOrdered());
+        assertMetrics(grid);
+    }
+
+    /**
+     * @param grid  Grid whose incremental metrics are compared with recomputed ones
+     */
+    private static void assertMetrics(PuzzleGrid grid) {
+        final BoardState state = grid.getState();
+        final int width = state.getWidth();
+        final int blankTile = state.getBlankTile();
+
+        int misplaced = 0;
+        int manhattan = 0;
+        for (int cell = 0; cell < state.getCellCount(); ++cell) {
+            final int tile = state.get(cell);
+            if (tile == blankTile)
+                continue;
+
+            if (tile != cell)
+                ++misplaced;
+            manhattan += Math.abs(tile % width - cell % width) + Math.abs(tile / width - cell / width);
+        }
+
+        assertEquals("misplaced", misplaced, grid.getMisplacedCount());
+        assertEquals("manhattan", manhattan, grid.getManhattanDistance());
+        assertEquals("parity", isOddPermutation(state), grid.isOddPermutation());
+        assertEquals("solvable", state.isSolvable(), grid.isSolvable());
+        assertEquals("ordered", state.isOrdered(), grid.isOrdered());
+        assertEquals("hash", Zobrist.forState(state).hash(state), grid.getHash());
+    }
+
+    /**
+     * @param state Board
+     * @return      True if permutation of all cells including blank is odd
+     */
+    private static boolean isOddPermutation(BoardState state) {
+        final int[] tiles = state.toArray();
+        final boolean[] visited = new boolean[tiles.length];
+        boolean odd = false;
+
+        for (int start = 0; start < tiles.length; ++start) {
+            int length = 0;
+            for (int cell = start; !visited[cell]; cell = tiles[cell]) {
+                visited[cell] = true;
+                ++length;
+            }
+
+            /** cycle of even length is odd count of transpositions */
+            if (length > 0 && (length & 1) == 0)
+                odd = !odd;
+        }
+        return odd;
+    }
+}
@@ -0,0 +1,96 @@
+package com.game.puzzle.solver;
+
+import com.game.puzzle.logic.BoardState;
+import com.game.puzzle.logic.PuzzleGenerator;
+import com.game.puzzle.logic.PuzzleGrid;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Perfect tables are built by breadth first search, so their distances
+ * are exact. Every optimal solver must find solutions of the same length.
+ */
+public class PerfectTableTest {
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    private static PerfectTable square;
+    private static PerfectTable wide;
+
+    @BeforeClass
+    public static void buildTables() throws IOException {
+        square = PerfectTable.load(FOLDER.getRoot().toPath(), new Dimension(3, 3));
+        wide = PerfectTable.load(FOLDER.getRoot().toPath(), new Dimension(4, 2));
+    }
+
+    @Test
+    public void tablesCoverAllSolvableBoards() {
+        assertEquals(181_440, square.getStateCount());
+        assertEquals(31, square.getMaxDistance());
+        assertEquals(2, square.getCount(31));
+        assertEquals(1, square.getCount(0));
+
+        assertEquals(20_160, wide.getStateCount());
+        assertEquals(36, wide.getMaxDistance());
+    }
+
+    @Test
+    public void solversFindSolutionsOfTableLength() {
+        final PuzzleGenerator generator = new PuzzleGenerator(23);
+        final IdaStarSolver ida = new IdaStarSolver();
+        final IdaStarSolver transpositions = new IdaStarSolver().setTranspositionBudget(1 << 20);
+        final ParallelIdaStarSolver parallel = new ParallelIdaStarSolver(
+                ManhattanHeuristic::withLinearConflict, new ForkJoinPool(2)
+        );
+
+        for (PerfectTable table : new PerfectTable[] { square, wide }) {
+            for (int i = 0; i < 200; ++i) {
+                final BoardState state = generator.shuffled(table.getSize());
+                final int distance = table.getDistance(state);
+
+                assertEquals(distance, ida.solve(state).getMoves().length);
+                assertEquals(distance, transpositions.solve(state).getMoves().length);
+                if (i % 10 == 0)
+                    assertEquals(distance, parallel.solve(state).getMoves().length);
+            }
+        }
+    }
+
+    @Test
+    public void tableSolutionOrdersBoard() {
+        final PuzzleGenerator generator = new PuzzleGenerator(24);
+
+        for (int i = 0; i < 200; ++i) {
+            final BoardState state = generator.shuffled(square.getSize());
+            final int distance = square.getDistance(state);
+            final PuzzleGrid.Direction[] moves = square.solve(state).getMoves();
+
+            assertEquals(distance, moves.length);
+
+            final BoardState probe = state.copy();
+            for (PuzzleGrid.Direction direction : moves) {
+                final int before = square.getDistance(probe);
+                assertTrue(probe.move(direction));
+                assertEquals(before - 1, square.getDistance(probe));
+            }
+            assertTrue(probe.isOrdered());
+        }
+    }
+
+    @Test
+    public void unsolvableBoardHasNoDistance() {
+        final BoardState state = BoardState.create(square.getSize());
+        state.swap(0, 1);
+
+        assertEquals(-1, square.getDistance(state));
+    }
+}